@@ -0,0 +1,84 @@
+package reimschussel.diyslider.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import reimschussel.diyslider.FlingIntegrator;
+import reimschussel.diyslider.SliderModel;
+
+// One 60 Hz frame with every thumb flinging at once, the way DIYSlider.stepFlings runs it:
+// integrate four fixed steps, move each thumb to its fling position, report back. A fling
+// that runs out is restarted straight away, so the list stays full. With ordering off the
+// cost is the integration and setPosition; with PUSH, flings keep running into each other.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FlingBenchmark {
+    private static final long FRAME_NANOS = 16666667L;
+
+    @Param({"10", "1000", "10000"})
+    public int thumbCount;
+
+    @Param({"0", "2"})
+    public int ordering;
+
+    private SliderModel mModel;
+    private FlingIntegrator mFlings;
+    private float[] mVelocities;
+    private long mNow;
+
+    @Setup
+    public void setUp(){
+        mModel = new SliderModel(new SliderModel.LinearGeometry(0f, 10000f, 100f), thumbCount, 0f, 100f);
+        mModel.setOrdering(ordering, 0f);
+        mModel.beginUpdate();
+        for(int i = 0; i < thumbCount; i++){
+            mModel.setValue(i, 100f * i / thumbCount);
+        }
+        mModel.endUpdate();
+
+        mFlings = new FlingIntegrator(mModel, 50f, 8000f);
+        mVelocities = new float[thumbCount];
+        Random random = new Random(42);
+        for(int i = 0; i < thumbCount; i++){
+            float speed = 500f + random.nextFloat() * 4000f;
+            mVelocities[i] = random.nextBoolean() ? speed : -speed;
+            mFlings.start(i, mVelocities[i], mNow);
+        }
+    }
+
+    @Benchmark
+    public int frame(){
+        mNow += FRAME_NANOS;
+        mFlings.advance(mNow);
+        mModel.beginUpdate();
+        for(int i = mFlings.getCount() - 1; i >= 0; i--){
+            int thumb = mFlings.getThumb(i);
+            mModel.setPosition(thumb, mFlings.getPosition(thumb));
+            mFlings.applied(thumb);
+            if(mFlings.isFinished(thumb)){
+                mFlings.stop(thumb);
+                // Send it back the way it came.
+                mVelocities[thumb] = -mVelocities[thumb];
+                mFlings.start(thumb, mVelocities[thumb], mNow);
+            }
+        }
+        mModel.endUpdate();
+        return mFlings.getCount();
+    }
+}
@@ -0,0 +1,174 @@
+package reimschussel.diyslider.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import reimschussel.diyslider.SliderModel;
+
+// Per-event geometry lookups on the ellipse: placing a thumb (getX/getY, the old
+// SliderThumb.updatePos), the parametric angle drawArc needs, projecting a touch onto the
+// arc (the old getAngleFromOrigin) and the distance used for hit-testing. Each table lookup
+// has a trig* twin doing the same job the way the view did before the table: the old
+// updatePos, getEllipseAngle, getAngleFromOrigin and distanceBetweenPoints, without the
+// quarter-arc clamps. Inputs cycle through a precomputed set so the lookups aren't
+// constant-folded.
+//
+// Setup also prints the table's worst-case error for each sweep, measured densely against
+// the trig it replaces: pixels for thumb points, degrees for the drawArc angle.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryBenchmark {
+    private static final int INPUTS = 1024;
+    private static final int ERROR_SAMPLES = 1000000;
+    private static final int WIDTH = 500, HEIGHT = 300;
+    private static final float ORIGIN_X = 600f, ORIGIN_Y = 600f;
+
+    // 90 is the original quarter arc; 270 a typical knob; 360 a full dial.
+    @Param({"90", "270", "360"})
+    public float sweep;
+
+    private SliderModel.EllipseGeometry mEllipse;
+    private final float[] mPositions = new float[INPUTS];
+    private final float[] mTouchX = new float[INPUTS];
+    private final float[] mTouchY = new float[INPUTS];
+    // Exact thumb points for mPositions, which the old getEllipseAngle started from.
+    private final float[] mPointX = new float[INPUTS];
+    private final float[] mPointY = new float[INPUTS];
+    private int mNext;
+
+    @Setup
+    public void setUp(){
+        mEllipse = new SliderModel.EllipseGeometry(ORIGIN_X, ORIGIN_Y, WIDTH, HEIGHT, 0.25f);
+        mEllipse.setArc(0f, sweep);
+        Random random = new Random(42);
+        for(int i = 0; i < INPUTS; i++){
+            mPositions[i] = mEllipse.getStart() + random.nextFloat() * (mEllipse.getEnd() - mEllipse.getStart());
+            mTouchX[i] = random.nextFloat() * 1200f;
+            mTouchY[i] = random.nextFloat() * 1200f;
+            mPointX[i] = trigX(mPositions[i]);
+            mPointY[i] = trigY(mPositions[i]);
+        }
+        reportError();
+    }
+
+    private void reportError(){
+        double pixels = 0.0, degrees = 0.0;
+        for(int i = 0; i <= ERROR_SAMPLES; i++){
+            float position = mEllipse.getStart() + (mEllipse.getEnd() - mEllipse.getStart()) * i / ERROR_SAMPLES;
+            float x = trigX(position), y = trigY(position);
+            pixels = Math.max(pixels, Math.hypot(mEllipse.getX(position) - x, mEllipse.getY(position) - y));
+            // The table's parametric angles are unwrapped; compare them modulo a turn.
+            double difference = Math.abs(mEllipse.getEllipseAngle(position) - trigEllipseAngle(x, y)) % 360.0;
+            degrees = Math.max(degrees, Math.min(difference, 360.0 - difference));
+        }
+        System.out.printf("%nsweep %.0f: worst thumb point error %.4f px (table reports %.4f px), "
+                + "worst drawArc angle error %.5f degrees%n", sweep, pixels, mEllipse.getMaxError(), degrees);
+    }
+
+    // SliderThumb.updatePos: the point at polar angle position on the ellipse.
+    private static float trigX(float position){
+        float cos = (float)Math.cos(Math.toRadians(position));
+        float sin = (float)Math.sin(Math.toRadians(position));
+        return (float)(ORIGIN_X + cos * trigScale(cos, sin) * WIDTH * HEIGHT);
+    }
+
+    private static float trigY(float position){
+        float cos = (float)Math.cos(Math.toRadians(position));
+        float sin = (float)Math.sin(Math.toRadians(position));
+        return (float)(ORIGIN_Y - sin * trigScale(cos, sin) * WIDTH * HEIGHT);
+    }
+
+    private static double trigScale(float cos, float sin){
+        double a_2 = Math.pow(WIDTH, 2);
+        double b_2 = Math.pow(HEIGHT, 2);
+        return 1/(Math.sqrt(b_2 * Math.pow(cos, 2) + a_2 * Math.pow(sin, 2)));
+    }
+
+    // SliderThumb.getEllipseAngle: the parametric angle of a thumb's point.
+    private static float trigEllipseAngle(float x, float y){
+        float delta_x = x - ORIGIN_X;
+        float delta_y = ORIGIN_Y - y;
+        return (float) Math.toDegrees(Math.atan2(WIDTH*delta_y, HEIGHT*delta_x));
+    }
+
+    private int next(){
+        mNext = (mNext + 1) & (INPUTS - 1);
+        return mNext;
+    }
+
+    @Benchmark
+    public float thumbPoint(){
+        float position = mPositions[next()];
+        return mEllipse.getX(position) + mEllipse.getY(position);
+    }
+
+    @Benchmark
+    public float trigThumbPoint(){
+        // updatePos computed cos, sin and the scale once for both coordinates.
+        float position = mPositions[next()];
+        float cos = (float)Math.cos(Math.toRadians(position));
+        float sin = (float)Math.sin(Math.toRadians(position));
+        double k = trigScale(cos, sin);
+        float x = (float)(ORIGIN_X + cos * k * WIDTH * HEIGHT);
+        float y = (float)(ORIGIN_Y - sin * k * WIDTH * HEIGHT);
+        return x + y;
+    }
+
+    @Benchmark
+    public float ellipseAngle(){
+        return mEllipse.getEllipseAngle(mPositions[next()]);
+    }
+
+    @Benchmark
+    public float trigEllipseAngle(){
+        int i = next();
+        return trigEllipseAngle(mPointX[i], mPointY[i]);
+    }
+
+    @Benchmark
+    public float project(){
+        int i = next();
+        return mEllipse.project(mTouchX[i], mTouchY[i]);
+    }
+
+    @Benchmark
+    public float trigProject(){
+        // getAngleFromOrigin; project adds only the wrap into the arc's range.
+        int i = next();
+        float delta_x = mTouchX[i] - ORIGIN_X;
+        float delta_y = ORIGIN_Y - mTouchY[i];
+        return (float) Math.toDegrees(Math.atan2(delta_y, delta_x));
+    }
+
+    @Benchmark
+    public double distanceBetweenPoints(){
+        int i = next();
+        int j = (i + 1) & (INPUTS - 1);
+        return SliderModel.distanceBetweenPoints(mTouchX[i], mTouchY[i], mTouchX[j], mTouchY[j]);
+    }
+
+    @Benchmark
+    public double powDistanceBetweenPoints(){
+        int i = next();
+        int j = (i + 1) & (INPUTS - 1);
+        double xDiff = mTouchX[j] - mTouchX[i];
+        double yDiff = mTouchY[j] - mTouchY[i];
+        return Math.sqrt(Math.pow(xDiff, 2) + Math.pow(yDiff, 2));
+    }
+}
@@ -0,0 +1,75 @@
+package reimschussel.diyslider.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import reimschussel.diyslider.SliderModel;
+
+// Hit-testing an ACTION_DOWN (the old getClosestThumb) against thumb count and track shape.
+// Thumbs are spread evenly and touches land anywhere near the track, so most queries have
+// to look at a few neighbours before the distance bound stops the walk.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NearestThumbBenchmark {
+    private static final int INPUTS = 1024;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int thumbCount;
+
+    @Param({"line", "arc", "circle", "path"})
+    public String track;
+
+    private SliderModel mModel;
+    private final float[] mTouchX = new float[INPUTS];
+    private final float[] mTouchY = new float[INPUTS];
+    private int mNext;
+
+    @Setup
+    public void setUp(){
+        SliderModel.Geometry geometry;
+        if(track.equals("line")){
+            geometry = new SliderModel.LinearGeometry(50f, 1050f, 100f);
+        } else if(track.equals("path")){
+            geometry = new SliderModel.PolylineGeometry(ProjectionBenchmark.spiral(512));
+        } else {
+            SliderModel.EllipseGeometry ellipse = new SliderModel.EllipseGeometry(600f, 600f, 500, 500, 0.25f);
+            if(track.equals("circle")){
+                ellipse.setArc(0f, 360f);
+            }
+            geometry = ellipse;
+        }
+        mModel = new SliderModel(geometry, thumbCount, 0f, 100f);
+        for(int i = 0; i < thumbCount; i++){
+            mModel.setValue(i, thumbCount > 1 ? 100f * i / (thumbCount - 1) : 50f);
+        }
+
+        Random random = new Random(42);
+        for(int i = 0; i < INPUTS; i++){
+            float position = geometry.getStart() + random.nextFloat() * (geometry.getEnd() - geometry.getStart());
+            mTouchX[i] = geometry.getX(position) + (random.nextFloat() - 0.5f) * 40f;
+            mTouchY[i] = geometry.getY(position) + (random.nextFloat() - 0.5f) * 40f;
+        }
+    }
+
+    @Benchmark
+    public int nearestThumb(){
+        mNext = (mNext + 1) & (INPUTS - 1);
+        return mModel.nearestThumb(mTouchX[mNext], mTouchY[mNext], 60.0);
+    }
+}
@@ -0,0 +1,105 @@
+package reimschussel.diyslider.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import reimschussel.diyslider.SliderModel;
+
+// Projecting a touch onto a path track: PolylineGeometry's box tree against checking every
+// segment, over path resolutions from a short curve to the most segments a view samples.
+// The path is a spiral, so it passes close to itself and the tree has real work to do.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProjectionBenchmark {
+    private static final int INPUTS = 1024;
+
+    @Param({"16", "128", "1024", "4096"})
+    public int segments;
+
+    private SliderModel.PolylineGeometry mPath;
+    private float[] mPoints;
+    private final float[] mTouchX = new float[INPUTS];
+    private final float[] mTouchY = new float[INPUTS];
+    private int mNext;
+
+    @Setup
+    public void setUp(){
+        mPoints = spiral(segments);
+        mPath = new SliderModel.PolylineGeometry(mPoints);
+        Random random = new Random(42);
+        for(int i = 0; i < INPUTS; i++){
+            mTouchX[i] = random.nextFloat() * 1000f;
+            mTouchY[i] = random.nextFloat() * 1000f;
+        }
+    }
+
+    // Three turns around (500, 500), widening from 50 to 450.
+    public static float[] spiral(int segments){
+        float[] points = new float[2*(segments + 1)];
+        for(int i = 0; i <= segments; i++){
+            double t = (double)i / segments;
+            double angle = t * 6 * Math.PI;
+            double radius = 50 + 400 * t;
+            points[2*i] = (float)(500 + radius * Math.cos(angle));
+            points[2*i + 1] = (float)(500 + radius * Math.sin(angle));
+        }
+        return points;
+    }
+
+    private int next(){
+        mNext = (mNext + 1) & (INPUTS - 1);
+        return mNext;
+    }
+
+    @Benchmark
+    public float tree(){
+        int i = next();
+        return mPath.project(mTouchX[i], mTouchY[i]);
+    }
+
+    @Benchmark
+    public float bruteForce(){
+        int i = next();
+        return projectBruteForce(mPoints, mTouchX[i], mTouchY[i]);
+    }
+
+    // Distance along the path to the nearest point on any segment.
+    public static float projectBruteForce(float[] points, float x, float y){
+        float best = Float.MAX_VALUE;
+        float bestPosition = 0f;
+        float length = 0f;
+        for(int i = 0; i + 3 < points.length; i += 2){
+            float dx = points[i+2] - points[i];
+            float dy = points[i+3] - points[i+1];
+            float lengthSquared = dx*dx + dy*dy;
+            float t = lengthSquared == 0f ? 0f : ((x - points[i])*dx + (y - points[i+1])*dy) / lengthSquared;
+            t = Math.max(0f, Math.min(t, 1f));
+            float ex = points[i] + t*dx - x;
+            float ey = points[i+1] + t*dy - y;
+            float distance = ex*ex + ey*ey;
+            float segmentLength = (float)Math.sqrt(lengthSquared);
+            if(distance < best){
+                best = distance;
+                bestPosition = length + t*segmentLength;
+            }
+            length += segmentLength;
+        }
+        return bestPosition;
+    }
+}
@@ -0,0 +1,72 @@
+package reimschussel.diyslider.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import reimschussel.diyslider.SliderModel;
+import reimschussel.diyslider.SliderState;
+
+// The JVM side of saving and restoring across a rotation: capturing the values and packing
+// them into the byte array the Parcel carries (8 + 4n bytes), unpacking it, and putting the
+// values back on a fresh model the way setThumbValues does. The Parcel copy itself is one
+// more bulk copy of the same array and isn't measured here.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SliderStateBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int thumbCount;
+
+    private SliderModel mModel;
+    private SliderModel mRestored;
+    private byte[] mSaved;
+
+    @Setup
+    public void setUp(){
+        mModel = new SliderModel(new SliderModel.LinearGeometry(50f, 1050f, 100f), thumbCount, 0f, 100f);
+        mRestored = new SliderModel(new SliderModel.LinearGeometry(50f, 1850f, 100f), thumbCount, 0f, 100f);
+        Random random = new Random(42);
+        mModel.beginUpdate();
+        for(int i = 0; i < thumbCount; i++){
+            mModel.setValue(i, 100f * random.nextFloat());
+        }
+        mModel.endUpdate();
+        mSaved = SliderState.capture(mModel, 0).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] save(){
+        return SliderState.capture(mModel, 0).toByteArray();
+    }
+
+    @Benchmark
+    public SliderState unpack(){
+        return SliderState.fromByteArray(mSaved);
+    }
+
+    @Benchmark
+    public int restore(){
+        float[] values = SliderState.fromByteArray(mSaved).getValues();
+        mRestored.beginUpdate();
+        for(int i = 0; i < values.length; i++){
+            mRestored.setValue(i, values[i]);
+        }
+        mRestored.endUpdate();
+        return mRestored.getPublishedVersion();
+    }
+}
@@ -0,0 +1,81 @@
+package reimschussel.diyslider.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import reimschussel.diyslider.SliderModel;
+
+// LogScale's table against the closed form it samples, both ways round: a drag maps track to
+// value (a lookup and a lerp against Math.pow), and a setValue maps back (a binary search
+// against Math.log). PiecewiseScale is there for a sense of what a few breakpoints cost.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueScaleBenchmark {
+    private static final float RATIO = 1000f;
+    private static final double LOG_RATIO = Math.log(RATIO);
+
+    private SliderModel.LogScale mLog;
+    private SliderModel.PiecewiseScale mPiecewise;
+    private float mFraction;
+
+    @Setup
+    public void setUp(){
+        mLog = new SliderModel.LogScale(RATIO);
+        mPiecewise = new SliderModel.PiecewiseScale(new float[]{0f, 0.25f, 0.5f, 0.75f, 1f},
+                new float[]{0f, 0.01f, 0.1f, 0.4f, 1f});
+        mFraction = 0f;
+    }
+
+    // Walks the fraction along the track like a slow drag, so every part of the table is hit.
+    private float next(){
+        mFraction += 0.000731f;
+        if(mFraction > 1f){
+            mFraction -= 1f;
+        }
+        return mFraction;
+    }
+
+    @Benchmark
+    public float tableToValue(){
+        return mLog.toValueFraction(next());
+    }
+
+    @Benchmark
+    public float powToValue(){
+        return (float)((Math.pow(RATIO, next()) - 1.0) / (RATIO - 1.0));
+    }
+
+    @Benchmark
+    public float tableToTrack(){
+        return mLog.toTrackFraction(next());
+    }
+
+    @Benchmark
+    public float logToTrack(){
+        return (float)(Math.log(1.0 + next() * (RATIO - 1.0)) / LOG_RATIO);
+    }
+
+    @Benchmark
+    public float piecewiseToValue(){
+        return mPiecewise.toValueFraction(next());
+    }
+
+    @Benchmark
+    public float piecewiseToTrack(){
+        return mPiecewise.toTrackFraction(next());
+    }
+}
@@ -0,0 +1,102 @@
+package reimschussel.diyslider.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import reimschussel.diyslider.SliderModel;
+
+// The per-event work against thumb count: hit-testing a touch (nearestThumb), value mapping
+// on a drag (setPosition: clamp, reorder, map to a value, publish), a batch moving every
+// thumb as one published update (setValue between beginUpdate and endUpdate), and copying
+// values out, both on the UI thread (getValues, the old getThumbValues) and from another
+// thread through the seqlock (readValues).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValuesBenchmark {
+    private static final int INPUTS = 1024;
+
+    @Param({"10", "1000", "100000"})
+    public int thumbCount;
+
+    private SliderModel mModel;
+    private float[] mOut;
+    private float mPosition;
+    private final float[] mTouchX = new float[INPUTS];
+    private final float[] mTouchY = new float[INPUTS];
+    private int mNextTouch;
+    private boolean mShifted;
+
+    @Setup
+    public void setUp(){
+        mModel = new SliderModel(new SliderModel.LinearGeometry(50f, 1050f, 100f), thumbCount, 0f, 100f);
+        for(int i = 0; i < thumbCount; i++){
+            mModel.setValue(i, 100f * i / thumbCount);
+        }
+        mOut = new float[thumbCount];
+        mPosition = 50f;
+
+        Random random = new Random(42);
+        for(int i = 0; i < INPUTS; i++){
+            mTouchX[i] = 50f + random.nextFloat() * 1000f;
+            mTouchY[i] = 100f + (random.nextFloat() - 0.5f) * 40f;
+        }
+    }
+
+    @Benchmark
+    public int nearestThumb(){
+        mNextTouch = (mNextTouch + 1) & (INPUTS - 1);
+        return mModel.nearestThumb(mTouchX[mNextTouch], mTouchY[mNextTouch], 60.0);
+    }
+
+    @Benchmark
+    public boolean setPosition(){
+        // Walk back and forth along the track like a slow drag.
+        mPosition += 0.75f;
+        if(mPosition > 1050f){
+            mPosition = 50f;
+        }
+        return mModel.setPosition(0, mPosition);
+    }
+
+    @Benchmark
+    public int batchedSetValue(){
+        // Every thumb moves by a quarter of the gap to its neighbour and back on the next
+        // call, so each batch changes every value but never the thumbs' order.
+        mShifted = !mShifted;
+        float shift = mShifted ? 25f / thumbCount : 0f;
+        mModel.beginUpdate();
+        for(int i = 0; i < thumbCount; i++){
+            mModel.setValue(i, 100f * i / thumbCount + shift);
+        }
+        mModel.endUpdate();
+        return mModel.getPublishedVersion();
+    }
+
+    @Benchmark
+    public float[] getValues(){
+        mModel.getValues(mOut);
+        return mOut;
+    }
+
+    @Benchmark
+    public float[] readValues(){
+        mModel.readValues(mOut);
+        return mOut;
+    }
+}
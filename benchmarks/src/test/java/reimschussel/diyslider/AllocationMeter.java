@@ -0,0 +1,36 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+// Counts the bytes the current thread allocates while it runs some work. One window can pick
+// up allocations that aren't the work's: the JIT deoptimising and recompiling the loop, TLAB
+// bookkeeping, the bean's own lazy setup. Those don't repeat, so the work is warmed up and
+// then measured over several windows, and the least any window saw is what the work itself
+// allocates. Skips the calling test on a JVM that can't count per-thread allocation.
+final class AllocationMeter {
+    private static final int WINDOWS = 5;
+
+    private AllocationMeter(){}
+
+    static long minAllocatedBytes(Runnable work, int warmups){
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        for(int i = 0; i < warmups; i++){
+            work.run();
+        }
+        threads.getThreadAllocatedBytes(thread);
+
+        long least = Long.MAX_VALUE;
+        for(int window = 0; window < WINDOWS && least > 0; window++){
+            long before = threads.getThreadAllocatedBytes(thread);
+            work.run();
+            least = Math.min(least, threads.getThreadAllocatedBytes(thread) - before);
+        }
+        return least;
+    }
+}
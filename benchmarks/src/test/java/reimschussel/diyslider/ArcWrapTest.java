@@ -0,0 +1,118 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Arcs whose positions run across 0/360: projection, point lookup and touch search must all
+// treat both sides of the seam as neighbours.
+class ArcWrapTest {
+    // Track points of a full circle, so touches land on the ellipse whatever the arc.
+    private static final SliderModel.EllipseGeometry CIRCLE = NearestThumbTest.arc(0f, 360f);
+
+    @Test
+    void projectsAcrossTheSeam(){
+        SliderModel.EllipseGeometry circle = NearestThumbTest.arc(0f, 360f);
+        assertEquals(359f, circle.project(pointX(359f), pointY(359f)), 0.01f);
+        assertEquals(1f, circle.project(pointX(1f), pointY(1f)), 0.01f);
+
+        // Positions on an arc from 300 to 420 run past 360 rather than wrapping to 0.
+        SliderModel.EllipseGeometry across = NearestThumbTest.arc(300f, 120f);
+        assertEquals(361f, across.project(pointX(1f), pointY(1f)), 0.01f);
+        assertEquals(359f, across.project(pointX(359f), pointY(359f)), 0.01f);
+        assertEquals(across.getX(361f), circle.getX(1f), 0.5f);
+        assertEquals(across.getY(361f), circle.getY(1f), 0.5f);
+    }
+
+    @Test
+    void valuesWrapWithPositions(){
+        SliderModel model = new SliderModel(NearestThumbTest.arc(300f, 120f), 1, 0f, 120f);
+        model.setValue(0, 61f);
+        assertEquals(361f, model.getPosition(0), 0.01f);
+        model.setPosition(0, model.getGeometry().project(pointX(10f), pointY(10f)));
+        assertEquals(70f, model.getValue(0), 0.01f);
+    }
+
+    @Test
+    void nearestThumbLooksAcrossTheSeam(){
+        SliderModel model = new SliderModel(NearestThumbTest.arc(0f, 360f), 2, 0f, 360f);
+        model.setValue(0, 2f);
+        model.setValue(1, 180f);
+        // Touching at 358 degrees is 4 degrees from thumb 0 the short way round.
+        assertEquals(0, model.nearestThumb(pointX(358f), pointY(358f), 80.0));
+
+        model.setValue(0, 357f);
+        assertEquals(0, model.nearestThumb(pointX(3f), pointY(3f), 80.0));
+    }
+
+    @Test
+    void fullCircleSearchStaysLocal(){
+        CountingGeometry geometry = new CountingGeometry(NearestThumbTest.arc(0f, 360f));
+        int count = 360;
+        SliderModel model = new SliderModel(geometry, count, 0f, 360f);
+        for(int i = 0; i < count; i++){
+            model.setValue(i, i + 0.5f);
+        }
+
+        for(float angle = 0f; angle < 360f; angle += 7.3f){
+            geometry.mLookups = 0;
+            assertTrue(model.nearestThumb(pointX(angle), pointY(angle), 80.0) >= 0);
+            assertTrue(geometry.mLookups < count / 10, "looked at " + geometry.mLookups + " thumbs at " + angle);
+        }
+    }
+
+    private static float pointX(float degrees){
+        return CIRCLE.getX(degrees);
+    }
+
+    private static float pointY(float degrees){
+        return CIRCLE.getY(degrees);
+    }
+
+    // Counts thumb point lookups, one per thumb nearestThumb measures.
+    private static class CountingGeometry implements SliderModel.Geometry {
+        private final SliderModel.Geometry mGeometry;
+        int mLookups;
+
+        CountingGeometry(SliderModel.Geometry geometry){
+            mGeometry = geometry;
+        }
+
+        @Override
+        public float getStart(){
+            return mGeometry.getStart();
+        }
+
+        @Override
+        public float getEnd(){
+            return mGeometry.getEnd();
+        }
+
+        @Override
+        public float project(float x, float y){
+            return mGeometry.project(x, y);
+        }
+
+        @Override
+        public float getX(float position){
+            mLookups++;
+            return mGeometry.getX(position);
+        }
+
+        @Override
+        public float getY(float position){
+            return mGeometry.getY(position);
+        }
+
+        @Override
+        public float getDistanceBound(float x, float y, float from, float to){
+            return mGeometry.getDistanceBound(x, y, from, to);
+        }
+
+        @Override
+        public float getPeriod(){
+            return mGeometry.getPeriod();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// A feed setting every value of a 1,000-thumb slider at once: between beginUpdate and
+// endUpdate the whole batch is one published update, however many thumbs it moves, and a
+// batch that changes nothing publishes nothing.
+class BulkUpdateTest {
+    private static final SliderModel.Geometry LINE = new SliderModel.LinearGeometry(0f, 1000f, 100f);
+    private static final int THUMBS = 1000;
+
+    @Test
+    void aBatchIsOneUpdate(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 1000f);
+        float[] expected = new float[THUMBS];
+        for(int i = 0; i < THUMBS; i++){
+            expected[i] = (i * 37) % 1000;
+        }
+        int version = model.getPublishedVersion();
+
+        setAll(model, expected);
+        assertEquals(version + 1, model.getPublishedVersion());
+        assertValues(model, expected);
+
+        // The same targets again: nothing moves, so nothing is published.
+        setAll(model, expected);
+        assertEquals(version + 1, model.getPublishedVersion());
+
+        for(int i = 0; i < THUMBS; i++){
+            expected[i] = 1000 - expected[i];
+        }
+        setAll(model, expected);
+        assertEquals(version + 2, model.getPublishedVersion());
+        assertValues(model, expected);
+    }
+
+    @Test
+    void aBatchKeepsOrderingAndSteps(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 1000f);
+        model.setStep(1f);
+        model.setOrdering(SliderModel.ORDERING_BLOCK, 0f);
+        float[] expected = new float[THUMBS];
+        for(int i = 0; i < THUMBS; i++){
+            expected[i] = i + 0.4f;
+        }
+        int version = model.getPublishedVersion();
+
+        // Set from the top down, so each thumb moves up without running into the next.
+        model.beginUpdate();
+        for(int i = THUMBS - 1; i >= 0; i--){
+            model.setValue(i, expected[i]);
+        }
+        model.endUpdate();
+
+        for(int i = 0; i < THUMBS; i++){
+            expected[i] = i;
+        }
+        assertEquals(version + 1, model.getPublishedVersion());
+        assertValues(model, expected);
+    }
+
+    @Test
+    void nestedBatchesPublishOnce(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 1000f);
+        int version = model.getPublishedVersion();
+        model.beginUpdate();
+        for(int i = 0; i < THUMBS; i++){
+            model.beginUpdate();
+            model.setValue(i, 500f);
+            model.endUpdate();
+            assertEquals(version, model.getPublishedVersion());
+        }
+        model.endUpdate();
+        assertEquals(version + 1, model.getPublishedVersion());
+    }
+
+    private static void setAll(SliderModel model, float[] values){
+        model.beginUpdate();
+        for(int i = 0; i < values.length; i++){
+            model.setValue(i, values[i]);
+        }
+        model.endUpdate();
+    }
+
+    private static void assertValues(SliderModel model, float[] expected){
+        float[] values = new float[THUMBS];
+        assertEquals(THUMBS, model.getValues(values));
+        assertArrayEquals(expected, values);
+        assertEquals(THUMBS, model.readValues(values));
+        assertArrayEquals(expected, values);
+    }
+}
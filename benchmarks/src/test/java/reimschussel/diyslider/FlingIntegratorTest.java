@@ -0,0 +1,149 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Flings run the way the view runs them: advance, move each flinging thumb to the fling's
+// position, report back, stop the ones that are done. The model stays in charge: a fling
+// that runs into a blocking neighbour stops against it, a flinging thumb that gets pushed
+// carries on from where it was pushed to, and the result doesn't depend on the frame rate.
+class FlingIntegratorTest {
+    private static final SliderModel.Geometry LINE = new SliderModel.LinearGeometry(0f, 1000f, 100f);
+    private static final float MIN_VELOCITY = 50f;
+    private static final float MAX_VELOCITY = 8000f;
+    private static final long SECOND_NANOS = 1000000000L;
+
+    private static SliderModel model(int thumbs){
+        return new SliderModel(LINE, thumbs, 0f, 1000f);
+    }
+
+    // One frame of DIYSlider.stepFlings.
+    private static void frame(SliderModel model, FlingIntegrator flings, long frameTimeNanos){
+        flings.advance(frameTimeNanos);
+        for(int i = flings.getCount() - 1; i >= 0; i--){
+            int thumb = flings.getThumb(i);
+            model.setPosition(thumb, flings.getPosition(thumb));
+            flings.applied(thumb);
+            if(flings.isFinished(thumb)){
+                flings.stop(thumb);
+            }
+        }
+    }
+
+    // Runs frames every frameNanos until every fling is done or a few seconds pass, and
+    // returns the time the last one stopped.
+    private static long runOut(SliderModel model, FlingIntegrator flings, long startNanos, long frameNanos){
+        long now = startNanos;
+        while(flings.getCount() > 0 && now - startNanos < 5 * SECOND_NANOS){
+            now += frameNanos;
+            frame(model, flings, now);
+        }
+        assertEquals(0, flings.getCount());
+        return now;
+    }
+
+    @Test
+    void slowReleaseDoesNotFling(){
+        SliderModel model = model(1);
+        FlingIntegrator flings = new FlingIntegrator(model, MIN_VELOCITY, MAX_VELOCITY);
+        assertFalse(flings.start(0, MIN_VELOCITY / 2, 0));
+        assertEquals(0, flings.getCount());
+        assertFalse(flings.isFlinging(0));
+    }
+
+    @Test
+    void coastsAndComesToRest(){
+        SliderModel model = model(1);
+        model.setPosition(0, 100f);
+        FlingIntegrator flings = new FlingIntegrator(model, MIN_VELOCITY, MAX_VELOCITY);
+        assertTrue(flings.start(0, 1000f, 0));
+        runOut(model, flings, 0, 16666667L);
+
+        // Exponential decay from v covers v / DRAG, less the tail cut off at the minimum.
+        float expected = 100f + (1000f - MIN_VELOCITY) / FlingIntegrator.DRAG;
+        assertEquals(expected, model.getPosition(0), 5f);
+    }
+
+    @Test
+    void stopsAtTheEndOfTheTrack(){
+        SliderModel model = model(1);
+        model.setPosition(0, 900f);
+        FlingIntegrator flings = new FlingIntegrator(model, MIN_VELOCITY, MAX_VELOCITY);
+        flings.start(0, MAX_VELOCITY, 0);
+        runOut(model, flings, 0, 16666667L);
+        assertEquals(1000f, model.getPosition(0), 0f);
+    }
+
+    @Test
+    void sameRestingPlaceAtAnyFrameRate(){
+        float[] rest = new float[3];
+        long[] frameNanos = {SECOND_NANOS / 30, SECOND_NANOS / 60, SECOND_NANOS / 144};
+        for(int i = 0; i < frameNanos.length; i++){
+            SliderModel model = model(1);
+            model.setPosition(0, 100f);
+            FlingIntegrator flings = new FlingIntegrator(model, MIN_VELOCITY, MAX_VELOCITY);
+            flings.start(0, 2000f, 0);
+            runOut(model, flings, 0, frameNanos[i]);
+            rest[i] = model.getPosition(0);
+        }
+        assertEquals(rest[0], rest[1], 0.01f);
+        assertEquals(rest[0], rest[2], 0.01f);
+    }
+
+    @Test
+    void blockedFlingStopsAgainstItsNeighbour(){
+        SliderModel model = model(2);
+        model.setOrdering(SliderModel.ORDERING_BLOCK, 0f);
+        model.setPosition(0, 100f);
+        model.setPosition(1, 300f);
+        FlingIntegrator flings = new FlingIntegrator(model, MIN_VELOCITY, MAX_VELOCITY);
+        flings.start(0, 4000f, 0);
+        long now = runOut(model, flings, 0, 16666667L);
+        assertEquals(300f, model.getPosition(0), 0f);
+
+        // Before, the fling kept integrating past the neighbour and the thumb jumped there as
+        // soon as the neighbour moved away. Now the thumb stays where it was stopped.
+        model.setPosition(1, 900f);
+        frame(model, flings, now + 16666667L);
+        assertEquals(300f, model.getPosition(0), 0f);
+    }
+
+    @Test
+    void pushedThumbCarriesOnFromWhereItWasPushed(){
+        SliderModel model = model(2);
+        model.setOrdering(SliderModel.ORDERING_PUSH, 0f);
+        model.setPosition(0, 100f);
+        model.setPosition(1, 200f);
+        FlingIntegrator flings = new FlingIntegrator(model, MIN_VELOCITY, MAX_VELOCITY);
+        flings.start(1, 200f, 0);
+        frame(model, flings, 16666667L);
+        float before = model.getPosition(1);
+
+        // Thumb 0 is dragged through thumb 1 and shoves it along.
+        model.setPosition(0, 600f);
+        assertEquals(600f, model.getPosition(1), 0f);
+        frame(model, flings, 2 * 16666667L);
+        float after = model.getPosition(1);
+        assertTrue(after >= 600f && after < 610f, "fling resumed from " + after + ", was at " + before);
+        assertTrue(flings.isFlinging(1));
+    }
+
+    @Test
+    void steppedFlingIsNotMistakenForABlock(){
+        SliderModel model = model(1);
+        model.setStep(100f);
+        model.setPosition(0, 0f);
+        FlingIntegrator flings = new FlingIntegrator(model, MIN_VELOCITY, MAX_VELOCITY);
+        flings.start(0, 1000f, 0);
+        frame(model, flings, 16666667L);
+
+        // Snapping holds the thumb on step 0 for now, but the fling runs on.
+        assertEquals(0f, model.getPosition(0), 0f);
+        assertTrue(flings.isFlinging(0));
+        runOut(model, flings, 16666667L, 16666667L);
+        assertEquals(200f, model.getPosition(0), 0f);
+    }
+}
@@ -0,0 +1,175 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A held key or a service scrolling as fast as it can: 500 presses between two frames make
+// one move and one announcement, not 500 of each. Presses a thumb can't take are refused,
+// and accessibility hears at most once per interval, ending on the last value.
+class KeyStepQueueTest {
+    private static final SliderModel.Geometry LINE = new SliderModel.LinearGeometry(0f, 1000f, 100f);
+    private static final long FRAME_NANOS = 16666667L;
+    private static final long ANNOUNCE_INTERVAL_NANOS = 100000000L;
+    private static final int PRESSES = 500;
+
+    // Plays the view: keys step the value by 1, frames are run by hand, and every move and
+    // announcement is recorded.
+    private static class FakeHost implements KeyStepQueue.Host {
+        final SliderModel mModel;
+        final List<Integer> mMoves = new ArrayList<>();
+        final List<Integer> mAnnounced = new ArrayList<>();
+        boolean mFramePending;
+
+        FakeHost(SliderModel model){
+            mModel = model;
+        }
+
+        @Override
+        public boolean canMove(int thumb, int steps){
+            float end = steps > 0 ? mModel.getMax() : mModel.getMin();
+            return mModel.wouldChange(thumb, mModel.positionOf(end));
+        }
+
+        @Override
+        public boolean applySteps(int thumb, int steps){
+            mMoves.add(steps);
+            return mModel.setValue(thumb, mModel.getValue(thumb) + steps);
+        }
+
+        @Override
+        public void postFrame(){
+            mFramePending = true;
+        }
+
+        @Override
+        public void removeFrame(){
+            mFramePending = false;
+        }
+
+        @Override
+        public void announce(int thumb){
+            mAnnounced.add(thumb);
+        }
+
+        void runFrame(KeyStepQueue queue, long frameTimeNanos){
+            if(mFramePending){
+                mFramePending = false;
+                queue.doFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    private static SliderModel model(int thumbs){
+        SliderModel model = new SliderModel(LINE, thumbs, 0f, 1000f);
+        model.setStep(1f);
+        return model;
+    }
+
+    @Test
+    void fiveHundredPressesMakeOneMoveAndOneAnnouncement(){
+        SliderModel model = model(1);
+        FakeHost host = new FakeHost(model);
+        KeyStepQueue queue = new KeyStepQueue(host, ANNOUNCE_INTERVAL_NANOS);
+
+        for(int i = 0; i < PRESSES; i++){
+            assertTrue(queue.queue(0, 1));
+        }
+        assertEquals(PRESSES, queue.getPendingSteps());
+        assertTrue(host.mMoves.isEmpty());
+
+        host.runFrame(queue, ANNOUNCE_INTERVAL_NANOS);
+        assertEquals(List.of(PRESSES), host.mMoves);
+        assertEquals(List.of(0), host.mAnnounced);
+        assertEquals(500f, model.getValue(0), 0f);
+        assertFalse(host.mFramePending);
+    }
+
+    @Test
+    void heldKeyMovesOncePerFrameAndAnnouncesOncePerInterval(){
+        SliderModel model = model(1);
+        FakeHost host = new FakeHost(model);
+        KeyStepQueue queue = new KeyStepQueue(host, ANNOUNCE_INTERVAL_NANOS);
+
+        // 500 presses spread over 50 frames, about 0.83 seconds.
+        long now = ANNOUNCE_INTERVAL_NANOS;
+        for(int i = 0; i < PRESSES; i++){
+            queue.queue(0, 1);
+            if(i % 10 == 9){
+                now += FRAME_NANOS;
+                host.runFrame(queue, now);
+            }
+        }
+        // The trailing announcement for the last value.
+        for(int i = 0; i < 10; i++){
+            now += FRAME_NANOS;
+            host.runFrame(queue, now);
+        }
+
+        assertEquals(PRESSES / 10, host.mMoves.size());
+        int total = 0;
+        for(int steps : host.mMoves){
+            total += steps;
+        }
+        assertEquals(PRESSES, total);
+        assertEquals(500f, model.getValue(0), 0f);
+
+        // One every 100ms of the 0.83s plus the trailing one; never 500.
+        long span = now - ANNOUNCE_INTERVAL_NANOS;
+        assertTrue(host.mAnnounced.size() <= span / ANNOUNCE_INTERVAL_NANOS + 1, host.mAnnounced.size() + " announcements");
+        assertFalse(host.mFramePending);
+    }
+
+    @Test
+    void pressesPastTheEndAreRefused(){
+        SliderModel model = model(1);
+        model.setValue(0, 1000f);
+        FakeHost host = new FakeHost(model);
+        KeyStepQueue queue = new KeyStepQueue(host, ANNOUNCE_INTERVAL_NANOS);
+
+        for(int i = 0; i < PRESSES; i++){
+            assertFalse(queue.queue(0, 1));
+        }
+        assertFalse(host.mFramePending);
+        assertTrue(queue.queue(0, -1));
+    }
+
+    @Test
+    void switchingThumbsAppliesTheFirstThumbsPresses(){
+        SliderModel model = model(2);
+        FakeHost host = new FakeHost(model);
+        KeyStepQueue queue = new KeyStepQueue(host, ANNOUNCE_INTERVAL_NANOS);
+
+        for(int i = 0; i < PRESSES; i++){
+            queue.queue(0, 1);
+        }
+        queue.queue(1, 1);
+        assertEquals(500f, model.getValue(0), 0f);
+        assertEquals(1, queue.getPendingSteps());
+
+        host.runFrame(queue, ANNOUNCE_INTERVAL_NANOS);
+        assertEquals(1f, model.getValue(1), 0f);
+        assertEquals(List.of(KeyStepQueue.ALL_THUMBS), host.mAnnounced);
+    }
+
+    @Test
+    void cancelAppliesPressesAndDropsTheAnnouncement(){
+        SliderModel model = model(1);
+        FakeHost host = new FakeHost(model);
+        KeyStepQueue queue = new KeyStepQueue(host, ANNOUNCE_INTERVAL_NANOS);
+
+        for(int i = 0; i < PRESSES; i++){
+            queue.queue(0, 2);
+            queue.queue(0, -1);
+        }
+        queue.cancel();
+        assertEquals(500f, model.getValue(0), 0f);
+        assertFalse(host.mFramePending);
+        assertTrue(host.mAnnounced.isEmpty());
+    }
+}
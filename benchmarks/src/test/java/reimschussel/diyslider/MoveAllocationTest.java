@@ -0,0 +1,88 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// What the view does with every ACTION_MOVE, minus the Android parts: find the thumb under
+// the touch, project the touch onto the track, move the thumb there, place it back on the
+// screen and copy the values out for listeners. None of it may allocate, on any track
+// shape, with or without ordering and steps.
+class MoveAllocationTest {
+    private static final int INPUTS = 1024;
+    private static final int MOVES = 20000;
+    private static final int THUMBS = 50;
+
+    @Test
+    void movesOnALineDontAllocate(){
+        checkMoves(new SliderModel.LinearGeometry(50f, 1050f, 100f), SliderModel.ORDERING_NONE, 0f);
+        checkMoves(new SliderModel.LinearGeometry(50f, 1050f, 100f), SliderModel.ORDERING_PUSH, 1f);
+    }
+
+    @Test
+    void movesOnAnArcDontAllocate(){
+        SliderModel.EllipseGeometry circle = new SliderModel.EllipseGeometry(600f, 600f, 500, 300, 0.25f);
+        circle.setArc(0f, 360f);
+        checkMoves(new SliderModel.EllipseGeometry(600f, 600f, 500, 300, 0.25f), SliderModel.ORDERING_BLOCK, 0f);
+        checkMoves(circle, SliderModel.ORDERING_NONE, 2f);
+    }
+
+    @Test
+    void movesOnAPathDontAllocate(){
+        float[] points = new float[2 * 256];
+        for(int i = 0; i < 256; i++){
+            points[2*i] = 50f + i * 4f;
+            points[2*i + 1] = 300f + 200f * (float)Math.sin(i / 20.0);
+        }
+        checkMoves(new SliderModel.PolylineGeometry(points), SliderModel.ORDERING_PUSH, 0f);
+    }
+
+    private static void checkMoves(final SliderModel.Geometry geometry, int ordering, float step){
+        final SliderModel model = new SliderModel(geometry, THUMBS, 0f, 100f);
+        model.setStep(step);
+        for(int i = 0; i < THUMBS; i++){
+            model.setValue(i, 100f * i / (THUMBS - 1));
+        }
+        if(ordering != SliderModel.ORDERING_NONE){
+            model.setOrdering(ordering, 0.5f);
+        }
+
+        // Touches within a thumb's reach of the track, so most of them grab one.
+        Random random = new Random(ordering);
+        final float[] touchX = new float[INPUTS];
+        final float[] touchY = new float[INPUTS];
+        for(int i = 0; i < INPUTS; i++){
+            float position = geometry.getStart() + random.nextFloat() * (geometry.getEnd() - geometry.getStart());
+            touchX[i] = geometry.getX(position) + (random.nextFloat() - 0.5f) * 40f;
+            touchY[i] = geometry.getY(position) + (random.nextFloat() - 0.5f) * 40f;
+        }
+
+        final float[] values = new float[THUMBS];
+        final float[] sink = new float[1];
+        final int[] grabs = new int[1];
+        long allocated = AllocationMeter.minAllocatedBytes(new Runnable() {
+            @Override
+            public void run(){
+                for(int move = 0; move < MOVES; move++){
+                    int i = move & (INPUTS - 1);
+                    int thumb = model.nearestThumb(touchX[i], touchY[i], 60.0);
+                    if(thumb < 0){
+                        continue;
+                    }
+                    grabs[0]++;
+                    model.setPosition(thumb, geometry.project(touchX[i], touchY[i]));
+                    float position = model.getPosition(thumb);
+                    sink[0] += geometry.getX(position) + geometry.getY(position);
+                    model.readValues(values);
+                    sink[0] += values[thumb];
+                }
+            }
+        }, 3);
+
+        assertEquals(0, allocated, "bytes allocated over " + MOVES + " moves");
+        assertTrue(grabs[0] > 0 && sink[0] != 0f);
+    }
+}
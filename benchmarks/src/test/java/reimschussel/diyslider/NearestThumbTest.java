@@ -0,0 +1,82 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// nearestThumb walks outward from the touch and stops on the geometry's distance bound; it
+// must pick the same thumb as checking every one of them.
+class NearestThumbTest {
+    private static final double MAX_DISTANCE = 80.0;
+
+    @Test
+    void lineMatchesBruteForce(){
+        checkAgainstBruteForce(new SliderModel.LinearGeometry(50f, 1050f, 100f), 1);
+    }
+
+    @Test
+    void quarterArcMatchesBruteForce(){
+        checkAgainstBruteForce(new SliderModel.EllipseGeometry(100f, 600f, 500, 300, 0.25f), 2);
+    }
+
+    @Test
+    void fullCircleMatchesBruteForce(){
+        checkAgainstBruteForce(arc(0f, 360f), 3);
+        checkAgainstBruteForce(arc(90f, -360f), 4);
+    }
+
+    @Test
+    void nearlyFullCircleMatchesBruteForce(){
+        checkAgainstBruteForce(arc(0f, 350f), 5);
+        checkAgainstBruteForce(arc(200f, -355f), 6);
+    }
+
+    @Test
+    void arcAcrossZeroMatchesBruteForce(){
+        checkAgainstBruteForce(arc(300f, 120f), 7);
+        checkAgainstBruteForce(arc(45f, -270f), 8);
+    }
+
+    static SliderModel.EllipseGeometry arc(float start, float sweep){
+        SliderModel.EllipseGeometry geometry = new SliderModel.EllipseGeometry(600f, 600f, 500, 300, 0.25f);
+        geometry.setArc(start, sweep);
+        return geometry;
+    }
+
+    static void checkAgainstBruteForce(SliderModel.Geometry geometry, long seed){
+        Random random = new Random(seed);
+        for(int trial = 0; trial < 200; trial++){
+            int count = 1 + random.nextInt(300);
+            SliderModel model = new SliderModel(geometry, count, 0f, 100f);
+            for(int i = 0; i < count; i++){
+                model.setValue(i, random.nextFloat() * 100f);
+            }
+
+            for(int query = 0; query < 200; query++){
+                float position = geometry.getStart() + random.nextFloat() * (geometry.getEnd() - geometry.getStart());
+                float x = geometry.getX(position) + (random.nextFloat() - 0.5f) * 200f;
+                float y = geometry.getY(position) + (random.nextFloat() - 0.5f) * 200f;
+                assertEquals(bruteForce(model, x, y), model.nearestThumb(x, y, MAX_DISTANCE),
+                        "trial " + trial + " query " + query);
+            }
+        }
+    }
+
+    // Ties go to the lower distance first found; random floats make exact ties vanishingly rare.
+    static int bruteForce(SliderModel model, float x, float y){
+        SliderModel.Geometry geometry = model.getGeometry();
+        int closest = -1;
+        double closestDistance = MAX_DISTANCE;
+        for(int i = 0; i < model.getThumbCount(); i++){
+            float position = model.getPosition(i);
+            double d = SliderModel.distanceBetweenPoints(x, y, geometry.getX(position), geometry.getY(position));
+            if(d < closestDistance){
+                closest = i;
+                closestDistance = d;
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,126 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// With ordering on, thumb i stays at or after thumb i-1 and at least the separation away from
+// it, whatever moves come in. BLOCK only ever moves the thumb it was asked to; PUSH may move
+// neighbours, but only inside the range it reports.
+class OrderingTest {
+    private static final SliderModel.Geometry LINE = new SliderModel.LinearGeometry(0f, 1000f, 100f);
+    private static final SliderModel.Geometry ARC = new SliderModel.EllipseGeometry(100f, 600f, 500, 300, 0.25f);
+    private static final int MOVES = 10000;
+
+    @Test
+    void blockKeepsOrderAndMovesOnlyOneThumb(){
+        checkRandomMoves(LINE, SliderModel.ORDERING_BLOCK, 200, 2f, 0f, 1);
+        checkRandomMoves(ARC, SliderModel.ORDERING_BLOCK, 50, 1f, 0f, 2);
+    }
+
+    @Test
+    void pushKeepsOrderAndReportsWhatMoved(){
+        checkRandomMoves(LINE, SliderModel.ORDERING_PUSH, 200, 2f, 0f, 3);
+        checkRandomMoves(ARC, SliderModel.ORDERING_PUSH, 50, 1f, 0f, 4);
+    }
+
+    @Test
+    void orderingHoldsWithSteps(){
+        checkRandomMoves(LINE, SliderModel.ORDERING_BLOCK, 20, 3f, 1f, 5);
+        checkRandomMoves(LINE, SliderModel.ORDERING_PUSH, 20, 3f, 1f, 6);
+    }
+
+    @Test
+    void separationShrinksToFit(){
+        // 11 thumbs can't be 20 apart on a range of 100; they end up evenly spread instead.
+        SliderModel model = new SliderModel(LINE, 11, 0f, 100f);
+        model.setOrdering(SliderModel.ORDERING_PUSH, 20f);
+        model.setValue(0, 100f);
+        for(int i = 0; i < 11; i++){
+            assertEquals(i * 10f, model.getValue(i), 1e-3f);
+        }
+    }
+
+    @Test
+    void turningOrderingOnSortsThumbs(){
+        SliderModel model = new SliderModel(LINE, 3, 0f, 100f);
+        model.setValue(0, 80f);
+        model.setValue(1, 20f);
+        model.setValue(2, 50f);
+        model.setOrdering(SliderModel.ORDERING_BLOCK, 5f);
+        assertEquals(20f, model.getValue(0), 1e-3f);
+        assertEquals(50f, model.getValue(1), 1e-3f);
+        assertEquals(80f, model.getValue(2), 1e-3f);
+    }
+
+    @Test
+    void wouldChangeSeesEndsAndNeighbours(){
+        SliderModel model = new SliderModel(LINE, 2, 0f, 100f);
+        model.setOrdering(SliderModel.ORDERING_BLOCK, 15f);
+        model.setValue(0, 0f);
+        model.setValue(1, 15f);
+        // Thumb 0 sits at the start with thumb 1 in the way: it can't go anywhere.
+        assertTrue(!model.wouldChange(0, LINE.getStart()));
+        assertTrue(!model.wouldChange(0, LINE.getEnd()));
+        assertTrue(model.wouldChange(1, LINE.getEnd()));
+        assertTrue(!model.wouldChange(1, LINE.getStart()));
+
+        // With a step, thumb 1 can't get below 20, the first step clear of thumb 0.
+        model.setStep(10f);
+        assertEquals(20f, model.getValue(1));
+        assertTrue(!model.wouldChange(1, LINE.getStart()));
+        assertTrue(model.wouldChange(1, model.positionOf(40f)));
+        assertEquals(20f, model.getValue(1));
+    }
+
+    private static void checkRandomMoves(SliderModel.Geometry geometry, int ordering, int thumbs,
+            float minSeparation, float step, long seed){
+        Random random = new Random(seed);
+        SliderModel model = new SliderModel(geometry, thumbs, 0f, 100f);
+        model.setStep(step);
+        for(int i = 0; i < thumbs; i++){
+            model.setValue(i, random.nextFloat() * 100f);
+        }
+        model.setOrdering(ordering, minSeparation);
+        float separation = Math.min(minSeparation * (geometry.getEnd() - geometry.getStart()) / 100f,
+                (geometry.getEnd() - geometry.getStart()) / (thumbs - 1));
+        // Positions are floats built up from each other, so allow a little rounding per chain.
+        float tolerance = Math.abs(geometry.getEnd() - geometry.getStart()) * 1e-5f;
+        checkOrder(model, separation - tolerance, "after setOrdering");
+
+        float[] before = new float[thumbs];
+        for(int move = 0; move < MOVES; move++){
+            for(int i = 0; i < thumbs; i++){
+                before[i] = model.getPosition(i);
+            }
+            int thumb = random.nextInt(thumbs);
+            // Mostly small drags, with the odd jump across the track.
+            float position = random.nextInt(10) == 0
+                    ? geometry.getStart() + random.nextFloat() * (geometry.getEnd() - geometry.getStart())
+                    : model.getPosition(thumb) + (random.nextFloat() - 0.5f) * separation * 8f;
+            model.setPosition(thumb, position);
+
+            String where = "move " + move + " of thumb " + thumb;
+            checkOrder(model, separation - tolerance, where);
+            int first = ordering == SliderModel.ORDERING_BLOCK ? thumb : model.getMovedFirst();
+            int last = ordering == SliderModel.ORDERING_BLOCK ? thumb : model.getMovedLast();
+            assertTrue(first <= thumb && thumb <= last, where);
+            for(int i = 0; i < thumbs; i++){
+                if(i < first || i > last){
+                    assertEquals(before[i], model.getPosition(i), where + ": thumb " + i + " moved");
+                }
+            }
+        }
+    }
+
+    private static void checkOrder(SliderModel model, float separation, String where){
+        for(int i = 1; i < model.getThumbCount(); i++){
+            assertTrue(model.getPosition(i) >= model.getPosition(i - 1) + separation,
+                    where + ": thumb " + i + " at " + model.getPosition(i) + " after " + model.getPosition(i - 1));
+            assertTrue(model.getValue(i) >= model.getValue(i - 1), where + ": values out of order at " + i);
+        }
+    }
+}
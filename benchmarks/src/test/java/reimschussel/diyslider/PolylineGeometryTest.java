@@ -0,0 +1,86 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import reimschussel.diyslider.benchmarks.ProjectionBenchmark;
+
+// Path tracks: the box tree has to find the same nearest point and the same nearest thumb as
+// a plain scan, including where the path passes close to itself.
+class PolylineGeometryTest {
+    @Test
+    void rejectsTooFewOrOddCoordinates(){
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PolylineGeometry(new float[0]));
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PolylineGeometry(new float[]{1f, 2f}));
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PolylineGeometry(new float[]{1f, 2f, 3f}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SliderModel.PolylineGeometry(new float[]{1f, 2f, 3f, 4f, 5f}));
+        assertEquals(5f, new SliderModel.PolylineGeometry(new float[]{0f, 0f, 3f, 4f}).getEnd(), 1e-6f);
+    }
+
+    @Test
+    void projectionMatchesBruteForce(){
+        Random random = new Random(21);
+        for(int segments : new int[]{1, 7, 64, 1000}){
+            float[] points = ProjectionBenchmark.spiral(segments);
+            SliderModel.PolylineGeometry path = new SliderModel.PolylineGeometry(points);
+            for(int i = 0; i < 2000; i++){
+                float x = random.nextFloat() * 1000f;
+                float y = random.nextFloat() * 1000f;
+                float position = path.project(x, y);
+                float expected = ProjectionBenchmark.projectBruteForce(points, x, y);
+                // Equally near points can sit far apart along the path; compare distances.
+                assertEquals(distance(path, expected, x, y), distance(path, position, x, y), 1e-2,
+                        segments + " segments, touch " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void distanceBoundNeverOvershoots(){
+        Random random = new Random(22);
+        SliderModel.PolylineGeometry path = new SliderModel.PolylineGeometry(ProjectionBenchmark.spiral(300));
+        for(int i = 0; i < 2000; i++){
+            float x = random.nextFloat() * 1000f;
+            float y = random.nextFloat() * 1000f;
+            float from = random.nextFloat() * path.getEnd();
+            float to = from + random.nextFloat() * (path.getEnd() - from);
+            float bound = path.getDistanceBound(x, y, from, to);
+            for(int k = 0; k <= 50; k++){
+                float position = from + (to - from) * k / 50;
+                assertTrue(bound <= distance(path, position, x, y) + 1e-3);
+            }
+        }
+    }
+
+    @Test
+    void nearestThumbMatchesBruteForce(){
+        NearestThumbTest.checkAgainstBruteForce(
+                new SliderModel.PolylineGeometry(ProjectionBenchmark.spiral(200)), 23);
+    }
+
+    // A U-shaped path: a touch on the way back is 100px from a thumb on the way out, but
+    // nearly the whole track away along it. The view passes only its touch allowance as the
+    // bound, so that touch grabs nothing; the old bound of the path's length took the thumb.
+    @Test
+    void touchAcrossAFoldOnlyGrabsNearbyThumbs(){
+        float[] points = {0f, 0f, 1000f, 0f, 1000f, 100f, 0f, 100f};
+        SliderModel.PolylineGeometry path = new SliderModel.PolylineGeometry(points);
+        SliderModel model = new SliderModel(path, 1, 0f, 100f);
+        model.setPosition(0, 100f);
+        float allowance = 25f;
+
+        assertEquals(-1, model.nearestThumb(100f, 100f, allowance));
+        assertEquals(0, model.nearestThumb(100f, 100f, path.getEnd() + allowance));
+        assertEquals(0, model.nearestThumb(110f, 10f, allowance));
+    }
+
+    private static double distance(SliderModel.Geometry geometry, float position, float x, float y){
+        return SliderModel.distanceBetweenPoints(x, y, geometry.getX(position), geometry.getY(position));
+    }
+}
@@ -0,0 +1,132 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// One thread writes like the UI thread would while another reads with readValues. Whatever the
+// timing, a read must be a set of values the model held between two updates: a push cascade
+// or a batch is never seen half applied.
+class SeqlockStressTest {
+    private static final SliderModel.Geometry LINE = new SliderModel.LinearGeometry(0f, 1000f, 100f);
+    private static final int THUMBS = 16;
+    private static final int WRITES = 400000;
+
+    @Test
+    void pushCascadesAreReadWhole() throws InterruptedException {
+        final SliderModel model = new SliderModel(LINE, THUMBS, 0f, 1000f);
+        model.setOrdering(SliderModel.ORDERING_PUSH, 20f);
+        final float separation = 20f;
+
+        runConcurrently(model, new Runnable() {
+            @Override
+            public void run(){
+                Random random = new Random(13);
+                for(int i = 0; i < WRITES; i++){
+                    model.setPosition(random.nextInt(THUMBS), random.nextFloat() * 1000f);
+                }
+            }
+        }, new Check() {
+            @Override
+            public String check(float[] values){
+                for(int i = 1; i < values.length; i++){
+                    // Positions are floats, so allow the separation a little rounding.
+                    if(values[i] < values[i-1] + separation - 0.01f){
+                        return "thumb " + i + " at " + values[i] + " under " + values[i-1];
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    void batchesAreReadWhole() throws InterruptedException {
+        final SliderModel model = new SliderModel(LINE, THUMBS, 0f, 1000f);
+        model.setStep(1f);
+        final int spacing = 10;
+        // Thumbs start all at 0, which isn't a batch the check accepts, so publish one before
+        // the reader starts.
+        setSpaced(model, 0, spacing);
+
+        runConcurrently(model, new Runnable() {
+            @Override
+            public void run(){
+                Random random = new Random(17);
+                for(int i = 0; i < WRITES / THUMBS; i++){
+                    setSpaced(model, random.nextInt(1000 - THUMBS * spacing), spacing);
+                }
+            }
+        }, new Check() {
+            @Override
+            public String check(float[] values){
+                for(int i = 1; i < values.length; i++){
+                    if(values[i] - values[0] != i * spacing){
+                        return "thumb " + i + " at " + values[i] + " with thumb 0 at " + values[0];
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    void emptyUpdatesDontBumpTheVersion(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 1000f);
+        int version = model.getPublishedVersion();
+        model.beginUpdate();
+        model.setValue(0, model.getValue(0));
+        model.endUpdate();
+        assertEquals(version, model.getPublishedVersion());
+
+        model.beginUpdate();
+        model.setValue(0, 500f);
+        model.setValue(1, 600f);
+        model.endUpdate();
+        assertEquals(version + 1, model.getPublishedVersion());
+    }
+
+    private static void setSpaced(SliderModel model, int base, int spacing){
+        model.beginUpdate();
+        for(int thumb = 0; thumb < THUMBS; thumb++){
+            model.setValue(thumb, base + thumb * spacing);
+        }
+        model.endUpdate();
+    }
+
+    private interface Check {
+        // null when values are consistent, otherwise what's wrong with them.
+        String check(float[] values);
+    }
+
+    private static void runConcurrently(final SliderModel model, Runnable writer, final Check check)
+            throws InterruptedException {
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final long[] reads = new long[1];
+        Thread readerThread = new Thread(new Runnable() {
+            @Override
+            public void run(){
+                float[] values = new float[THUMBS];
+                while(!done.get() && failure.get() == null){
+                    model.readValues(values);
+                    failure.compareAndSet(null, check.check(values));
+                    reads[0]++;
+                }
+            }
+        });
+        readerThread.start();
+        writer.run();
+        done.set(true);
+        readerThread.join();
+
+        assertNull(failure.get());
+        assertTrue(reads[0] > 0);
+    }
+}
@@ -0,0 +1,79 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Metrics are recorded from inside touch and draw handling, so recording, snapshots (taken
+// directly or handed to a listener) and reading them back must never allocate. Also checks
+// that what goes in comes back out of a snapshot.
+class SliderMetricsTest {
+    private static final int ROUNDS = 20000;
+
+    @Test
+    void recordingDoesNotAllocate(){
+        final SliderMetrics metrics = new SliderMetrics();
+        final long[] seen = new long[1];
+        metrics.setSnapshotListener(new SliderMetrics.SnapshotListener() {
+            @Override
+            public void onSnapshot(SliderMetrics from, SliderMetrics.Snapshot snapshot){
+                seen[0] += snapshot.getValueAtPercentile(SliderMetrics.METRIC_DRAW, 99.0);
+            }
+        }, 1);
+        final SliderMetrics.Snapshot snapshot = new SliderMetrics.Snapshot();
+        final long[] sink = new long[1];
+
+        long allocated = AllocationMeter.minAllocatedBytes(new Runnable() {
+            @Override
+            public void run(){
+                sink[0] += exercise(metrics, snapshot, ROUNDS);
+            }
+        }, 3);
+
+        assertEquals(0, allocated, "bytes allocated over " + ROUNDS + " rounds");
+        assertTrue(sink[0] > 0 && seen[0] > 0);
+    }
+
+    @Test
+    void snapshotsHoldWhatWasRecorded(){
+        SliderMetrics metrics = new SliderMetrics();
+        for(long nanos = 1; nanos <= 100; nanos++){
+            metrics.record(SliderMetrics.METRIC_LISTENER, 1000, 1000 + nanos * 1000);
+        }
+        SliderMetrics.Snapshot snapshot = new SliderMetrics.Snapshot();
+        metrics.takeSnapshot(snapshot);
+
+        assertEquals(100, snapshot.getCount(SliderMetrics.METRIC_LISTENER));
+        assertEquals(0, snapshot.getCount(SliderMetrics.METRIC_DRAW));
+        assertEquals(100000, snapshot.getMaxNanos(SliderMetrics.METRIC_LISTENER));
+        assertEquals(50500.0, snapshot.getMeanNanos(SliderMetrics.METRIC_LISTENER), 1e-9);
+        // Percentiles are bucket tops, within 1/32 of the true value.
+        long median = snapshot.getValueAtPercentile(SliderMetrics.METRIC_LISTENER, 50.0);
+        assertTrue(median >= 50000 && median <= 50000 * 33 / 32, "median " + median);
+        assertEquals(100000, snapshot.getValueAtPercentile(SliderMetrics.METRIC_LISTENER, 100.0));
+
+        // The snapshot started a new interval.
+        metrics.takeSnapshot(snapshot);
+        assertEquals(0, snapshot.getCount(SliderMetrics.METRIC_LISTENER));
+    }
+
+    // Records a spread of timings into every metric, with a snapshot every so often, and reads
+    // a little back so none of it can be optimised away.
+    private static long exercise(SliderMetrics metrics, SliderMetrics.Snapshot snapshot, int rounds){
+        long sink = 0;
+        long now = System.nanoTime();
+        for(int i = 0; i < rounds; i++){
+            long start = now;
+            now += 1 + (i * 7919L) % 5000000L;
+            metrics.record(i % SliderMetrics.METRIC_COUNT, start, now);
+            if(i % 1000 == 999){
+                metrics.takeSnapshot(snapshot);
+                sink += snapshot.getCount(SliderMetrics.METRIC_TOUCH_HANDLING)
+                        + snapshot.getValueAtPercentile(SliderMetrics.METRIC_DRAW, 90.0)
+                        + (long)snapshot.getMeanNanos(SliderMetrics.METRIC_LISTENER);
+            }
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,103 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Saved state round trips: a thousand thumbs go through one byte array of 8 + 4n bytes and
+// come back with every value bit for bit, then onto a new model of a different size, steps and
+// ordering included. Anything that isn't a saved state is refused rather than misread.
+class SliderStateTest {
+    private static final int THUMBS = 1000;
+
+    private static SliderModel model(float end){
+        return new SliderModel(new SliderModel.LinearGeometry(50f, end, 100f), THUMBS, -20f, 80f);
+    }
+
+    // The order DIYSlider.setThumbValues restores in, so ordered thumbs don't block each other.
+    private static void restore(SliderModel model, float[] values){
+        model.beginUpdate();
+        for(int i = values.length - 1; i >= 0; i--){
+            if(values[i] > model.getValue(i)){
+                model.setValue(i, values[i]);
+            }
+        }
+        for(int i = 0; i < values.length; i++){
+            if(values[i] <= model.getValue(i)){
+                model.setValue(i, values[i]);
+            }
+        }
+        model.endUpdate();
+    }
+
+    @Test
+    void valuesAndKeyboardThumbSurviveARoundTrip(){
+        SliderModel saved = model(1050f);
+        Random random = new Random(7);
+        for(int i = 0; i < THUMBS; i++){
+            saved.setValue(i, -20f + 100f * random.nextFloat());
+        }
+
+        byte[] data = SliderState.capture(saved, 321).toByteArray();
+        assertEquals(8 + 4 * THUMBS, data.length);
+
+        SliderState state = SliderState.fromByteArray(data);
+        assertEquals(321, state.getKeyboardThumb());
+        assertArrayEquals(valuesOf(saved), state.getValues());
+
+        // A rotated view is a different size; values stay put, positions follow.
+        SliderModel restored = model(1800f);
+        restore(restored, state.getValues());
+        // Through a position and back, a value can lose its last bit or so.
+        assertArrayEquals(valuesOf(saved), valuesOf(restored), 1e-4f);
+    }
+
+    @Test
+    void stepsAndOrderingComeBackTheSame(){
+        SliderModel saved = model(1050f);
+        saved.setStep(0.5f);
+        saved.setOrdering(SliderModel.ORDERING_PUSH, 0.05f);
+        for(int i = 0; i < THUMBS; i++){
+            saved.setValue(i, -20f + 0.08f * i);
+        }
+
+        SliderState state = SliderState.fromByteArray(SliderState.capture(saved, 0).toByteArray());
+        SliderModel restored = model(700f);
+        restored.setStep(0.5f);
+        restored.setOrdering(SliderModel.ORDERING_PUSH, 0.05f);
+        restore(restored, state.getValues());
+        for(int i = 0; i < THUMBS; i++){
+            assertEquals(saved.getStepIndex(i), restored.getStepIndex(i), "thumb " + i);
+        }
+        assertArrayEquals(valuesOf(saved), valuesOf(restored));
+    }
+
+    @Test
+    void overriddenValuesAreSaved(){
+        SliderModel saved = model(1050f);
+        SliderState state = SliderState.capture(saved, 0);
+        state.setValue(5, 42f);
+        assertEquals(42f, SliderState.fromByteArray(state.toByteArray()).getValues()[5], 0f);
+        assertEquals(-20f, saved.getValue(5), 0f);
+    }
+
+    @Test
+    void brokenDataIsRefused(){
+        byte[] data = SliderState.capture(model(1050f), 0).toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> SliderState.fromByteArray(null));
+        assertThrows(IllegalArgumentException.class, () -> SliderState.fromByteArray(new byte[5]));
+        assertThrows(IllegalArgumentException.class, () -> SliderState.fromByteArray(Arrays.copyOf(data, data.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> SliderState.fromByteArray(Arrays.copyOf(data, data.length + 4)));
+    }
+
+    private static float[] valuesOf(SliderModel model){
+        float[] values = new float[model.getThumbCount()];
+        model.getValues(values);
+        return values;
+    }
+}
@@ -0,0 +1,117 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// With a step set, values and positions both snap, including at the ends of the range and on
+// a short last step, and ordering never lets two separated thumbs settle on the same step.
+class StepSnapTest {
+    private static final SliderModel.Geometry LINE = new SliderModel.LinearGeometry(50f, 1050f, 100f);
+
+    @Test
+    void snapsToTheEdges(){
+        SliderModel model = new SliderModel(LINE, 1, 0f, 100f);
+        model.setStep(10f);
+
+        model.setValue(0, 3f);
+        assertSnapped(model, 0, 0, 0f);
+        assertEquals(LINE.getStart(), model.getPosition(0));
+
+        model.setValue(0, 97f);
+        assertSnapped(model, 0, 10, 100f);
+        assertEquals(LINE.getEnd(), model.getPosition(0));
+
+        model.setPosition(0, LINE.getStart() - 500f);
+        assertSnapped(model, 0, 0, 0f);
+        model.setPosition(0, LINE.getEnd() + 500f);
+        assertSnapped(model, 0, 10, 100f);
+        assertEquals(100, model.getIntValue(0));
+    }
+
+    @Test
+    void snapsToTheEdgesOfAReversedRange(){
+        SliderModel model = new SliderModel(LINE, 1, 100f, 0f);
+        model.setStep(10f);
+
+        model.setPosition(0, LINE.getStart() + 2f);
+        assertSnapped(model, 0, 0, 100f);
+        assertEquals(LINE.getStart(), model.getPosition(0));
+
+        model.setPosition(0, LINE.getEnd() - 2f);
+        assertSnapped(model, 0, 10, 0f);
+        assertEquals(LINE.getEnd(), model.getPosition(0));
+    }
+
+    @Test
+    void shortLastStepSnapsToMax(){
+        SliderModel model = new SliderModel(LINE, 1, 0f, 25f);
+        model.setStep(10f);
+        assertEquals(3, model.getStepCount());
+
+        model.setValue(0, 23f);
+        assertSnapped(model, 0, 3, 25f);
+        assertEquals(LINE.getEnd(), model.getPosition(0));
+
+        model.setValue(0, 22f);
+        assertSnapped(model, 0, 2, 20f);
+    }
+
+    @Test
+    void positionsSitOnTheirStep(){
+        SliderModel model = new SliderModel(LINE, 1, 0f, 100f);
+        model.setStep(7f);
+        Random random = new Random(11);
+        int lastStep = model.getStepIndex(0);
+        int changes = 0;
+        for(int i = 0; i < 1000; i++){
+            boolean changed = model.setPosition(0, LINE.getStart() + random.nextFloat() * 1000f);
+            assertEquals(model.clamp(model.positionOf(model.getValue(0))), model.getPosition(0));
+            assertEquals(changed, model.getStepIndex(0) != lastStep);
+            changes += changed ? 1 : 0;
+            lastStep = model.getStepIndex(0);
+        }
+        assertTrue(changes > 0);
+    }
+
+    @Test
+    void separatedThumbsNeverShareAStep(){
+        for(int ordering : new int[]{SliderModel.ORDERING_BLOCK, SliderModel.ORDERING_PUSH}){
+            Random random = new Random(ordering);
+            SliderModel model = new SliderModel(LINE, 4, 0f, 100f);
+            // A separation under one step: without position snapping, neighbours could sit
+            // within a step of each other and report the same one.
+            model.setOrdering(ordering, 3f);
+            model.setStep(10f);
+            for(int i = 0; i < 5000; i++){
+                model.setPosition(random.nextInt(4), LINE.getStart() + random.nextFloat() * 1000f);
+                for(int thumb = 1; thumb < 4; thumb++){
+                    assertTrue(model.getStepIndex(thumb) > model.getStepIndex(thumb - 1),
+                            "ordering " + ordering + " move " + i + " thumb " + thumb);
+                    assertTrue(model.getPosition(thumb) > model.getPosition(thumb - 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    void turningOnAStepSpreadsOrderedThumbs(){
+        SliderModel model = new SliderModel(LINE, 3, 0f, 100f);
+        model.setOrdering(SliderModel.ORDERING_PUSH, 1f);
+        model.setValue(0, 41f);
+        model.setValue(1, 42f);
+        model.setValue(2, 43f);
+
+        model.setStep(10f);
+        assertTrue(model.getStepIndex(0) < model.getStepIndex(1));
+        assertTrue(model.getStepIndex(1) < model.getStepIndex(2));
+    }
+
+    private static void assertSnapped(SliderModel model, int thumb, int step, float value){
+        assertEquals(step, model.getStepIndex(thumb));
+        assertEquals(value, model.getValue(thumb));
+    }
+}
@@ -0,0 +1,58 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Heap per thumb for the view's drawing state, counted as the bytes a thread allocates to
+// build a store of a million thumbs. Paints are shared per style and live in the view, so
+// they don't scale with the thumb count and aren't counted. A store costs x, y, a style
+// index and one bit per thumb: 12 bytes and change. Giving one thumb its own radius adds an
+// array of radii, 4 bytes per thumb; nothing else allocates it.
+class ThumbStoreMemoryTest {
+    private static final int THUMBS = 1000000;
+    private static final float RADIUS = 12f;
+
+    // Keeps each store reachable so the allocation can't be optimised away.
+    private static ThumbStore sStore;
+
+    private static double bytesPerThumb(Runnable work){
+        return (double)AllocationMeter.minAllocatedBytes(work, 3) / THUMBS;
+    }
+
+    @Test
+    void defaultThumbsCostTwelveBytesEach(){
+        double perThumb = bytesPerThumb(() -> sStore = new ThumbStore(THUMBS, RADIUS));
+        assertTrue(perThumb >= 12.0 && perThumb < 12.2, perThumb + " bytes per thumb");
+        assertFalse(sStore.hasCustomRadii());
+    }
+
+    @Test
+    void customRadiusAddsFourBytesEach(){
+        double perThumb = bytesPerThumb(() -> {
+            sStore = new ThumbStore(THUMBS, RADIUS);
+            sStore.setRadius(THUMBS / 2, 2 * RADIUS);
+        });
+        assertTrue(perThumb >= 16.0 && perThumb < 16.2, perThumb + " bytes per thumb");
+        assertTrue(sStore.hasCustomRadii());
+        assertEquals(RADIUS, sStore.getRadius(0), 0f);
+        assertEquals(2 * RADIUS, sStore.getRadius(THUMBS / 2), 0f);
+    }
+
+    @Test
+    void defaultRadiusAndStateChangesAllocateNothing(){
+        ThumbStore store = new ThumbStore(THUMBS, RADIUS);
+        long bytes = AllocationMeter.minAllocatedBytes(() -> {
+            for(int i = 0; i < THUMBS; i += 1000){
+                store.setRadius(i, RADIUS);
+                store.setStyle(i, 1);
+                store.setActive(i, !store.isActive(i));
+                store.setPosition(i, store.getX(i) + 1f, store.getY(i));
+            }
+        }, 10);
+        assertEquals(0, bytes);
+        assertFalse(store.hasCustomRadii());
+    }
+}
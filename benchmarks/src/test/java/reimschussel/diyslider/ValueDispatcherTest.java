@@ -0,0 +1,155 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+// Per-frame dispatch under a flood of moves: 1,000 moves between frames still make exactly
+// one callback per frame, carrying the latest value of every thumb, and the end of a drag
+// delivers whatever is still waiting.
+class ValueDispatcherTest {
+    private static final SliderModel.Geometry LINE = new SliderModel.LinearGeometry(0f, 1000f, 100f);
+    private static final long FRAME_NANOS = 16666667L;
+    private static final int THUMBS = 8;
+
+    // Plays the view: frames are run by hand, and each delivery copies the model's values
+    // the way the view hands them to listeners.
+    private static class FakeHost implements ValueDispatcher.Host {
+        final SliderModel mModel;
+        final float[] mDelivered = new float[THUMBS];
+        int mDispatches, mPosts, mRemoves;
+        boolean mFramePending;
+
+        FakeHost(SliderModel model){
+            mModel = model;
+        }
+
+        @Override
+        public void postFrame(){
+            mPosts++;
+            mFramePending = true;
+        }
+
+        @Override
+        public void removeFrame(){
+            mRemoves++;
+            mFramePending = false;
+        }
+
+        @Override
+        public void dispatch(){
+            mDispatches++;
+            mModel.getValues(mDelivered);
+        }
+
+        void runFrame(ValueDispatcher dispatcher, long frameTimeNanos){
+            if(mFramePending){
+                mFramePending = false;
+                dispatcher.doFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    @Test
+    void oneCallbackPerFrameWithTheLatestValues(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 100f);
+        FakeHost host = new FakeHost(model);
+        ValueDispatcher dispatcher = new ValueDispatcher(host);
+        dispatcher.setMode(ValueDispatcher.DISPATCH_PER_FRAME, 0L);
+
+        Random random = new Random(3);
+        float[] latest = new float[THUMBS];
+        int frames = 60;
+        for(int frame = 1; frame <= frames; frame++){
+            for(int move = 0; move < 1000; move++){
+                int thumb = random.nextInt(THUMBS);
+                if(model.setPosition(thumb, random.nextFloat() * 1000f)){
+                    dispatcher.valuesChanged();
+                }
+                latest[thumb] = model.getValue(thumb);
+            }
+            assertEquals(frame - 1, host.mDispatches, "nothing goes out between frames");
+            host.runFrame(dispatcher, frame * FRAME_NANOS);
+            assertEquals(frame, host.mDispatches);
+            assertEquals(frame, host.mPosts, "one frame posted per frame, not per move");
+            assertArrayEquals(latest, host.mDelivered);
+        }
+
+        // A frame with nothing new says nothing.
+        host.runFrame(dispatcher, (frames + 1) * FRAME_NANOS);
+        assertEquals(frames, host.mDispatches);
+    }
+
+    @Test
+    void maxRateSkipsFrames(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 100f);
+        FakeHost host = new FakeHost(model);
+        ValueDispatcher dispatcher = new ValueDispatcher(host);
+        dispatcher.setMode(ValueDispatcher.DISPATCH_PER_FRAME, 0L);
+        dispatcher.setMaxRate(20f);
+
+        // 60 frames of one second, with moves before every one: 20 callbacks at most.
+        for(int frame = 1; frame <= 60; frame++){
+            model.setValue(0, frame);
+            dispatcher.valuesChanged();
+            host.runFrame(dispatcher, frame * FRAME_NANOS);
+        }
+        assertEquals(20, host.mDispatches);
+
+        // The last value still goes out, on the next frame the rate allows.
+        for(int frame = 61; host.mFramePending; frame++){
+            host.runFrame(dispatcher, frame * FRAME_NANOS);
+        }
+        assertEquals(60f, host.mDelivered[0]);
+    }
+
+    @Test
+    void flushDeliversWhatIsWaiting(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 100f);
+        FakeHost host = new FakeHost(model);
+        ValueDispatcher dispatcher = new ValueDispatcher(host);
+        dispatcher.setMode(ValueDispatcher.DISPATCH_PER_FRAME, 0L);
+
+        for(int move = 0; move < 1000; move++){
+            model.setValue(move % THUMBS, move / 10f);
+            dispatcher.valuesChanged();
+        }
+        // The end of a drag: listeners get the final values now, and the frame is taken back.
+        dispatcher.flush(FRAME_NANOS / 2);
+        assertEquals(1, host.mDispatches);
+        assertEquals(1, host.mRemoves);
+        assertFalse(host.mFramePending);
+        assertFalse(dispatcher.isDirty());
+        float[] values = new float[THUMBS];
+        model.getValues(values);
+        assertArrayEquals(values, host.mDelivered);
+
+        // Nothing left to flush.
+        dispatcher.flush(FRAME_NANOS);
+        assertEquals(1, host.mDispatches);
+    }
+
+    @Test
+    void immediateModeDeliversEveryChange(){
+        SliderModel model = new SliderModel(LINE, THUMBS, 0f, 100f);
+        FakeHost host = new FakeHost(model);
+        ValueDispatcher dispatcher = new ValueDispatcher(host);
+        for(int move = 0; move < 1000; move++){
+            model.setValue(0, move / 10f);
+            dispatcher.valuesChanged();
+        }
+        assertEquals(1000, host.mDispatches);
+        assertEquals(0, host.mPosts);
+
+        // Switching back from per-frame delivers what was waiting.
+        dispatcher.setMode(ValueDispatcher.DISPATCH_PER_FRAME, 0L);
+        dispatcher.valuesChanged();
+        dispatcher.setMode(ValueDispatcher.DISPATCH_IMMEDIATE, 0L);
+        assertEquals(1001, host.mDispatches);
+        assertFalse(host.mFramePending);
+    }
+}
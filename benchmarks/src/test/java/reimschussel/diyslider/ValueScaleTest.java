@@ -0,0 +1,94 @@
+package reimschussel.diyslider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+// Every scale maps the track onto the range and back: 0 and 1 are fixed, toTrackFraction
+// undoes toValueFraction, and the table-based scales stay on the curves they sample.
+class ValueScaleTest {
+    private static final int SAMPLES = 10000;
+    private static final float ROUND_TRIP = 1e-4f;
+
+    @Test
+    void linearRoundTrips(){
+        checkRoundTrip(SliderModel.ValueScale.LINEAR);
+    }
+
+    @Test
+    void logAndExpRoundTrip(){
+        for(float ratio : new float[]{0.001f, 2f, 1000f, 1e6f}){
+            checkRoundTrip(new SliderModel.LogScale(ratio));
+            checkRoundTrip(new SliderModel.ExpScale(ratio));
+        }
+    }
+
+    @Test
+    void piecewiseRoundTrips(){
+        checkRoundTrip(new SliderModel.PiecewiseScale(new float[]{0f, 0.5f, 1f}, new float[]{0f, 0.1f, 1f}));
+        checkRoundTrip(new SliderModel.PiecewiseScale(new float[]{0f, 0.2f, 0.3f, 0.9f, 1f},
+                new float[]{0f, 0.05f, 0.5f, 0.6f, 1f}));
+        assertEquals(0.1f, new SliderModel.PiecewiseScale(new float[]{0f, 0.5f, 1f},
+                new float[]{0f, 0.1f, 1f}).toValueFraction(0.5f));
+    }
+
+    @Test
+    void logFollowsItsCurve(){
+        for(float ratio : new float[]{2f, 1000f, 1e6f}){
+            SliderModel.LogScale scale = new SliderModel.LogScale(ratio);
+            for(int i = 0; i <= SAMPLES; i++){
+                double t = (double)i / SAMPLES;
+                double u = (Math.pow(ratio, t) - 1.0) / (ratio - 1.0);
+                assertEquals(u, scale.toValueFraction((float)t), 3e-5, "ratio " + ratio + " at " + t);
+            }
+        }
+    }
+
+    @Test
+    void expFollowsItsCurve(){
+        for(float ratio : new float[]{2f, 1000f, 1e6f}){
+            SliderModel.ExpScale scale = new SliderModel.ExpScale(ratio);
+            for(int i = 0; i <= SAMPLES; i++){
+                double u = (double)i / SAMPLES;
+                double t = (Math.pow(ratio, u) - 1.0) / (ratio - 1.0);
+                assertEquals(t, scale.toTrackFraction((float)u), 3e-5, "ratio " + ratio + " at " + u);
+            }
+        }
+    }
+
+    @Test
+    void piecewiseRejectsBadBreakpoints(){
+        // Different lengths.
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PiecewiseScale(
+                new float[]{0f, 0.5f, 1f}, new float[]{0f, 1f}));
+        // Too few points.
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PiecewiseScale(
+                new float[]{0f}, new float[]{0f}));
+        // Not running from 0 to 1.
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PiecewiseScale(
+                new float[]{0.1f, 1f}, new float[]{0f, 1f}));
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PiecewiseScale(
+                new float[]{0f, 1f}, new float[]{0f, 0.9f}));
+        // Decreasing, or NaN.
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PiecewiseScale(
+                new float[]{0f, 0.6f, 0.4f, 1f}, new float[]{0f, 0.2f, 0.3f, 1f}));
+        assertThrows(IllegalArgumentException.class, () -> new SliderModel.PiecewiseScale(
+                new float[]{0f, 0.5f, 1f}, new float[]{0f, Float.NaN, 1f}));
+
+        // Flat segments are allowed.
+        new SliderModel.PiecewiseScale(new float[]{0f, 0.5f, 0.5f, 1f}, new float[]{0f, 0.2f, 0.8f, 1f});
+    }
+
+    private static void checkRoundTrip(SliderModel.ValueScale scale){
+        assertEquals(0f, scale.toValueFraction(0f));
+        assertEquals(1f, scale.toValueFraction(1f));
+        assertEquals(0f, scale.toTrackFraction(0f));
+        assertEquals(1f, scale.toTrackFraction(1f));
+        for(int i = 0; i <= SAMPLES; i++){
+            float t = (float)i / SAMPLES;
+            assertEquals(t, scale.toTrackFraction(scale.toValueFraction(t)), ROUND_TRIP, "track " + t);
+            assertEquals(t, scale.toValueFraction(scale.toTrackFraction(t)), ROUND_TRIP, "value " + t);
+        }
+    }
+}
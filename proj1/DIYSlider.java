@@ -5,8 +5,17 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.v4.view.AccessibilityDelegateCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
 
 import java.lang.Math;
 
@@ -26,7 +35,9 @@ public class DIYSlider extends View {
 
     private final float TEXT_SIZE = 90f;
 
-    private String mSliderValue;
+    // Written on the UI thread only; volatile so other threads can read it through getValue.
+    private volatile int mValue;
+    private ValueLabel mLabel;
 
     private PointF mCircleCenter, mLineStart, mLineEnd, mTextPos;
     private Paint mCirclePaint, mLinePaintActive, mLinePaintInactive, mTextPaint;
@@ -34,6 +45,31 @@ public class DIYSlider extends View {
     private final float ALLOWED_TOUCH_DIFFERENCE = CIRCLE_RADIUS + 5f;
     private boolean mIsActive = false;
 
+    // Area changed since the last invalidate, and the union of everything invalidated since
+    // the last draw (for getLastFrameRedrawnPixels).
+    private final float DIRTY_MARGIN = 2f;
+    private final RectF mDirtyRegion = new RectF();
+    private final Rect mDirtyRect = new Rect();
+    private final Rect mFrameDirtyRect = new Rect();
+    private boolean mFullRedraw = true;
+    private long mLastFrameRedrawnPixels;
+
+    // Left and right move the value by one, page keys by ten. Redraws already coalesce into one
+    // frame, but accessibility events don't, so they go out at most once per
+    // ACCESSIBILITY_EVENT_INTERVAL_MS, plus a trailing one for the value a held key ends on.
+    private final int KEY_PAGE_STEPS = 10;
+    private final long ACCESSIBILITY_EVENT_INTERVAL_MS = 100;
+    private final String SEEK_BAR_CLASS_NAME = "android.widget.SeekBar";
+    private long mLastAccessibilityEventMs;
+    private boolean mAccessibilityEventPending;
+    private final Runnable mAccessibilityEventRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mAccessibilityEventPending = false;
+            sendValueAccessibilityEvent();
+        }
+    };
+
 
     public DIYSlider(Context context){
         super(context);
@@ -57,28 +93,66 @@ public class DIYSlider extends View {
         mLinePaintInactive.setAntiAlias(true);
         mLinePaintInactive.setStrokeWidth(LINE_STROKE_WIDTH);
 
-        mSliderValue = "0";
-
         mTextPaint = new Paint();
         mTextPaint.setColor(Color.BLACK);
         mTextPaint.setTextSize(CIRCLE_RADIUS);
         mTextPaint.setAntiAlias(true);
 
+        mLabel = new ValueLabel(mTextPaint);
+        mLabel.setValue(mValue);
+
         mTextPos = new PointF(10f, 200f);
 
-        invalidate();
+        setFocusable(true);
+        ViewCompat.setAccessibilityDelegate(this, new AccessibilityDelegateCompat() {
+            @Override
+            public void onInitializeAccessibilityNodeInfo(View host, AccessibilityNodeInfoCompat info){
+                super.onInitializeAccessibilityNodeInfo(host, info);
+                info.setClassName(SEEK_BAR_CLASS_NAME);
+                info.setRangeInfo(AccessibilityNodeInfoCompat.RangeInfoCompat.obtain(
+                        AccessibilityNodeInfoCompat.RangeInfoCompat.RANGE_TYPE_INT, 0, 100, mValue));
+                info.setScrollable(true);
+                if(mValue < 100){
+                    info.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+                }
+                if(mValue > 0){
+                    info.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+                }
+                info.addAction(AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_SET_PROGRESS);
+            }
+
+            @Override
+            public boolean performAccessibilityAction(View host, int action, Bundle arguments){
+                if(action == AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD){
+                    return moveToValue(mValue + 1);
+                }
+                if(action == AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD){
+                    return moveToValue(mValue - 1);
+                }
+                if(action == AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_SET_PROGRESS.getId()
+                        && arguments != null
+                        && arguments.containsKey(AccessibilityNodeInfoCompat.ACTION_ARGUMENT_PROGRESS_VALUE)){
+                    return moveToValue(Math.round(
+                            arguments.getFloat(AccessibilityNodeInfoCompat.ACTION_ARGUMENT_PROGRESS_VALUE)));
+                }
+                return super.performAccessibilityAction(host, action, arguments);
+            }
+        });
+
+        invalidateAll();
     }
 
     @Override
-    protected synchronized void onDraw(Canvas canvas){
+    protected void onDraw(Canvas canvas){
         super.onDraw(canvas);
+        recordRedrawnPixels();
 
         drawLineFromPoints(mLineStart, mCircleCenter, canvas, mLinePaintActive);
         drawLineFromPoints(mCircleCenter, mLineEnd, canvas, mLinePaintInactive);
 
         canvas.drawCircle(mCircleCenter.x, mCircleCenter.y, CIRCLE_RADIUS, mCirclePaint);
 
-        canvas.drawText(mSliderValue, mTextPos.x, mTextPos.y, mTextPaint);
+        mLabel.draw(canvas, mTextPos.x, mTextPos.y);
     }
 
     private double distanceBetweenPoints(PointF start, PointF end){
@@ -108,13 +182,77 @@ public class DIYSlider extends View {
                 point.y >= LINE_Y - LINE_STROKE_WIDTH/2 && point.y <= LINE_Y + LINE_STROKE_WIDTH/2);
     }
 
+    // The label only reformats its digits when the value actually changes.
     private void updateTextValue(){
-        int value = (int)((mCircleCenter.x - mLineStart.x)/(LINE_WIDTH) * 100);
-        mSliderValue = Integer.toString(value);
+        mValue = (int)((mCircleCenter.x - mLineStart.x)/(LINE_WIDTH) * 100);
+        mLabel.setValue(mValue);
+    }
+
+    // Current value, 0 to 100. Safe to call from any thread.
+    public int getValue(){
+        return mValue;
+    }
+
+    // Number of pixels the last onDraw was asked to repaint.
+    public long getLastFrameRedrawnPixels(){
+        return mLastFrameRedrawnPixels;
+    }
+
+    private void invalidateAll(){
+        mFullRedraw = true;
+        invalidate();
+    }
+
+    // Dirties whatever differs from the previous state: the circle's old and new spots plus the
+    // stretch of line between them, and the text if the value changed.
+    private void markChanges(float prevX, float prevY, boolean wasActive, int prevValue, float prevTextWidth){
+        if(prevX != mCircleCenter.x || prevY != mCircleCenter.y || wasActive != mIsActive){
+            float r = CIRCLE_RADIUS + DIRTY_MARGIN;
+            mDirtyRegion.union(prevX - r, prevY - r, prevX + r, prevY + r);
+            mDirtyRegion.union(mCircleCenter.x - r, mCircleCenter.y - r, mCircleCenter.x + r, mCircleCenter.y + r);
+
+            float stroke = LINE_STROKE_WIDTH/2 + DIRTY_MARGIN;
+            mDirtyRegion.union(Math.min(prevX, mCircleCenter.x), LINE_Y - stroke,
+                    Math.max(prevX, mCircleCenter.x), LINE_Y + stroke);
+        }
+
+        if(prevValue != mValue){
+            float width = Math.max(prevTextWidth, mLabel.getWidth());
+            mDirtyRegion.union(mTextPos.x - DIRTY_MARGIN, mTextPos.y + mLabel.getAscent() - DIRTY_MARGIN,
+                    mTextPos.x + width + DIRTY_MARGIN, mTextPos.y + mLabel.getDescent() + DIRTY_MARGIN);
+        }
+    }
+
+    // Invalidates only what changed since the last call, and nothing if nothing did.
+    private void invalidateDirtyRegion(){
+        if(mDirtyRegion.isEmpty()){
+            return;
+        }
+
+        mDirtyRegion.roundOut(mDirtyRect);
+        mDirtyRegion.setEmpty();
+        mFrameDirtyRect.union(mDirtyRect);
+        invalidate(mDirtyRect);
+    }
+
+    private void recordRedrawnPixels(){
+        if(mFullRedraw){
+            mLastFrameRedrawnPixels = (long)getWidth() * getHeight();
+        } else {
+            mLastFrameRedrawnPixels = (long)mFrameDirtyRect.width() * mFrameDirtyRect.height();
+        }
+        mFullRedraw = false;
+        mFrameDirtyRect.setEmpty();
     }
 
     @Override
     public boolean onTouchEvent (MotionEvent event) {
+        float prevX = mCircleCenter.x;
+        float prevY = mCircleCenter.y;
+        boolean wasActive = mIsActive;
+        int prevValue = mValue;
+        float prevTextWidth = mLabel.getWidth();
+
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
                 PointF eventPoint = new PointF(event.getX(), event.getY());
@@ -144,7 +282,81 @@ public class DIYSlider extends View {
 
         clamp();
         updateTextValue();
-        invalidate();
+        markChanges(prevX, prevY, wasActive, prevValue, prevTextWidth);
+        invalidateDirtyRegion();
         return true;
     }
+
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event){
+        // Like a SeekBar, only keys that change the value are ours. At either end the arrow
+        // falls through, so focus can move on; up and down always do on this horizontal line.
+        boolean handled = false;
+        switch(keyCode){
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                handled = moveToValue(mValue + 1);
+                break;
+
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                handled = moveToValue(mValue - 1);
+                break;
+
+            case KeyEvent.KEYCODE_PAGE_UP:
+                handled = moveToValue(mValue + KEY_PAGE_STEPS);
+                break;
+
+            case KeyEvent.KEYCODE_PAGE_DOWN:
+                handled = moveToValue(mValue - KEY_PAGE_STEPS);
+                break;
+
+            case KeyEvent.KEYCODE_MOVE_HOME:
+                handled = moveToValue(0);
+                break;
+
+            case KeyEvent.KEYCODE_MOVE_END:
+                handled = moveToValue(100);
+                break;
+        }
+        return handled || super.onKeyDown(keyCode, event);
+    }
+
+    // Puts the circle exactly on value (clamped to 0 to 100). Returns whether it changed.
+    private boolean moveToValue(int value){
+        value = Math.max(0, Math.min(value, 100));
+        if(value == mValue || mIsActive){
+            return false;
+        }
+
+        float prevX = mCircleCenter.x;
+        float prevY = mCircleCenter.y;
+        int prevValue = mValue;
+        float prevTextWidth = mLabel.getWidth();
+
+        // Set the value directly; converting the new x back could land just below it.
+        mCircleCenter.x = mLineStart.x + value * LINE_WIDTH / 100;
+        mValue = value;
+        mLabel.setValue(mValue);
+        markChanges(prevX, prevY, mIsActive, prevValue, prevTextWidth);
+        invalidateDirtyRegion();
+        scheduleValueAccessibilityEvent();
+        return true;
+    }
+
+    private void scheduleValueAccessibilityEvent(){
+        if(mAccessibilityEventPending){
+            return;
+        }
+        long wait = mLastAccessibilityEventMs + ACCESSIBILITY_EVENT_INTERVAL_MS - SystemClock.uptimeMillis();
+        if(wait <= 0){
+            sendValueAccessibilityEvent();
+        } else {
+            mAccessibilityEventPending = true;
+            postDelayed(mAccessibilityEventRunnable, wait);
+        }
+    }
+
+    private void sendValueAccessibilityEvent(){
+        mLastAccessibilityEventMs = SystemClock.uptimeMillis();
+        sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+    }
 }
@@ -4,11 +4,25 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PathMeasure;
 import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.view.Choreographer;
+import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 public class DIYSlider extends View {
@@ -18,60 +32,143 @@ public class DIYSlider extends View {
         void onStopObservingTouch(DIYSlider slider, ArrayList<Float> values);
     }
 
-    private class SliderThumb {
-        private PointF mPos;
-        private float mValue;
-        private boolean mActive;
-        private Paint mPaint;
-        private float mRadius;
+    // How onValueChanged is delivered while dragging: on every touch event, or coalesced so
+    // listeners hear about the latest values at most once per display frame.
+    public static final int DISPATCH_IMMEDIATE = ValueDispatcher.DISPATCH_IMMEDIATE;
+    public static final int DISPATCH_PER_FRAME = ValueDispatcher.DISPATCH_PER_FRAME;
 
-        SliderThumb(PointF pos, float value){
-            mPos = pos;
-            mValue = value;
-            mActive = false;
-            mPaint = new Paint();
-            mPaint.setColor(THUMB_INACTIVE_COLOR);
-            mPaint.setAntiAlias(true);
-        }
+    // Whether thumbs may pass each other; see setThumbOrdering.
+    public static final int ORDERING_NONE = SliderModel.ORDERING_NONE;
+    public static final int ORDERING_BLOCK = SliderModel.ORDERING_BLOCK;
+    public static final int ORDERING_PUSH = SliderModel.ORDERING_PUSH;
+
+    // Paints for one look of a thumb, shared by every thumb that uses it.
+    private static class ThumbStyle {
+        private final int mInactiveColor, mActiveColor;
+        private final Paint mInactivePaint, mActivePaint;
 
-        float getX(){
-            return mPos.x;
+        ThumbStyle(int inactiveColor, int activeColor){
+            mInactiveColor = inactiveColor;
+            mActiveColor = activeColor;
+            mInactivePaint = newPaint(inactiveColor);
+            mActivePaint = newPaint(activeColor);
         }
-        float getY(){
-            return mPos.y;
+
+        private static Paint newPaint(int color){
+            Paint paint = new Paint();
+            paint.setColor(color);
+            paint.setAntiAlias(true);
+            return paint;
         }
-        void setX(float x){
-            mPos.x = x;
+    }
+
+    private static class TouchHistory {
+        private final float[] mPositions;
+        private final long[] mTimes;
+        private int mHead, mCount;
+
+        TouchHistory(int capacity){
+            mPositions = new float[capacity];
+            mTimes = new long[capacity];
         }
-        void setY(float y){
-            mPos.y = y;
+
+        void clear(){
+            mHead = 0;
+            mCount = 0;
         }
-        float getValue(){
-            return mValue;
+
+        void add(float position, long time){
+            mPositions[mHead] = position;
+            mTimes[mHead] = time;
+            mHead = (mHead + 1) % mPositions.length;
+            if(mCount < mPositions.length){
+                mCount++;
+            }
         }
-        void setValue(float v){
-            mValue = v;
+
+        int size(){
+            return mCount;
         }
-        boolean isActive(){
-            return mActive;
+
+        // i = 0 is the oldest sample still held.
+        float getPosition(int i){
+            return mPositions[slot(i)];
         }
-        void setActive(boolean isActive){
-            mActive = isActive;
+
+        long getTime(int i){
+            return mTimes[slot(i)];
         }
-        void setColor(int color){
-            mPaint.setColor(color);
+
+        // Least-squares slope of position over time across the samples no older than windowMs
+        // before the newest one, in position units per second. 0 with fewer than two samples.
+        float getVelocity(long windowMs){
+            if(mCount < 2){
+                return 0f;
+            }
+
+            long newest = getTime(mCount - 1);
+            int first = mCount - 1;
+            while(first > 0 && newest - getTime(first - 1) <= windowMs){
+                first--;
+            }
+            int n = mCount - first;
+            if(n < 2){
+                return 0f;
+            }
+
+            double meanTime = 0, meanPosition = 0;
+            for(int i = first; i < mCount; i++){
+                meanTime += getTime(i) - newest;
+                meanPosition += getPosition(i);
+            }
+            meanTime /= n;
+            meanPosition /= n;
+
+            double covariance = 0, variance = 0;
+            for(int i = first; i < mCount; i++){
+                double dt = getTime(i) - newest - meanTime;
+                covariance += dt * (getPosition(i) - meanPosition);
+                variance += dt * dt;
+            }
+            return variance == 0 ? 0f : (float)(covariance / variance * 1000.0);
         }
-        float getRadius(){
-            return mRadius;
+
+        private int slot(int i){
+            return (mHead - mCount + i + mPositions.length) % mPositions.length;
         }
-        void setRadius(float radius){
-            mRadius = radius;
+    }
+
+    // What survives the activity being recreated, packed by SliderState into one byte array,
+    // so the Parcel holds a single bulk array however many thumbs there are.
+    static class SavedState extends BaseSavedState {
+        SliderState mState;
+
+        SavedState(Parcelable superState){
+            super(superState);
         }
 
+        private SavedState(Parcel in){
+            super(in);
+            mState = SliderState.fromByteArray(in.createByteArray());
+        }
 
-        void draw(Canvas canvas){
-            canvas.drawCircle(mPos.x, mPos.y, mRadius, mPaint);
+        @Override
+        public void writeToParcel(Parcel out, int flags){
+            super.writeToParcel(out, flags);
+            out.writeByteArray(mState.toByteArray());
         }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in){
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size){
+                return new SavedState[size];
+            }
+        };
     }
 
     private final float PADDING = 50f;
@@ -87,16 +184,210 @@ public class DIYSlider extends View {
     private final int THUMB_ACTIVE_COLOR = getResources().getColor(R.color.colorPrimaryDark);
 
     private int mWidth, mWidthPercent, mHeight;
-    private ArrayList<SliderThumb> mThumbs = new ArrayList<>();
+
+    // Thumb drawing state (see ThumbStore); positions and values live in mModel. Per-event
+    // loops walk its arrays in order instead of chasing one object (and PointF) per thumb.
+    private int mThumbCount;
+    private ThumbStore mThumbs;
+
+    // A thumb's style is an index into mThumbStyles rather than Paints per thumb, so any
+    // number of thumbs share the default style's two Paints and pressing a thumb just picks
+    // the other one. Style 0 is the default. Radii and labels only get arrays once they're used.
+    private final ArrayList<ThumbStyle> mThumbStyles = new ArrayList<>();
+    private ValueLabel[] mThumbLabels;
+
     private PointF mLineStart, mLineEnd;
+    private SliderModel.LinearGeometry mLine;
+    // The track thumbs follow: mLine, or mPathTrack once a path from setTrackPath is measured.
+    private SliderModel.Geometry mTrack;
+
+    // Optional path track in view coordinates. At measure time, and only after the path
+    // changed, it is flattened into mPathTrack, an arc-length table that touch events project
+    // onto. Only the path's first contour is a track; mTrackContour is that contour alone, for
+    // drawing, and mTrackPathMeasure and mPathActive are kept for the active stretch.
+    private final float PATH_SAMPLE_SPACING = 2f;
+    private final int MAX_PATH_SEGMENTS = 8192;
+    private Path mTrackPath;
+    private boolean mTrackPathDirty;
+    private PathMeasure mTrackPathMeasure;
+    private final Path mTrackContour = new Path();
+    // PathMeasure distance per unit of polyline length; chords run slightly short on curves.
+    private float mTrackPathScale;
+    private SliderModel.PolylineGeometry mPathTrack;
+    private final Path mPathActive = new Path();
+    private final float[] mPathPoint = new float[2];
+    private final float[] mPathBounds = new float[4];
+    private SliderModel mModel;
     private Paint mLinePaintActive, mLinePaintInactive;
 
-    private float mMin, mMax;
+    // Optional density histogram under the track, made on the first setHistogramData.
+    private final int HISTOGRAM_COLOR = 0x50000000 | (LINE_ACTIVE_COLOR & 0x00FFFFFF);
+    private final float HISTOGRAM_HEIGHT = THUMB_RADIUS;
+    private HistogramOverlay mHistogram;
 
-    private SliderThumb mActiveThumb;
+    // Area changed since the last invalidate, and the union of everything invalidated since
+    // the last draw (for getLastFrameRedrawnPixels).
+    private final float DIRTY_MARGIN = 2f;
+    private final RectF mDirtyRegion = new RectF();
+    private final Rect mDirtyRect = new Rect();
+    private final Rect mFrameDirtyRect = new Rect();
+    private final PointF mPrevThumbPos = new PointF();
+    private float mPrevThumbExtent, mPrevThumbPosition;
+    private boolean mFullRedraw = true;
+    private long mLastFrameRedrawnPixels;
+
+    // Optional value drawn on each thumb. The paint and labels are created when first enabled
+    // and share the paint, so drawing and updating them doesn't allocate.
+    private final float LABEL_TEXT_SIZE = THUMB_RADIUS * 0.6f;
+    private final int LABEL_COLOR = Color.WHITE;
+    private boolean mThumbLabelsEnabled;
+    private int mThumbLabelDecimals;
+    private Paint mLabelPaint;
+
+    // Pointers currently dragging thumbs. Slot i is held by pointer mPointerIds[i]
+    // (INVALID_POINTER_ID when free) and drags thumb mPointerThumbs[i]. A released
+    // slot keeps its thumb so that drag's history stays readable until the slot is reused.
+    private final int MAX_POINTERS = 10;
+    private final int[] mPointerIds = new int[MAX_POINTERS];
+    private final int[] mPointerThumbs = new int[MAX_POINTERS];
+    private boolean mValuesChanged;
+
+    // Optional hot-path timings, see setMetrics. Every use reads it into a local first, so a
+    // listener swapping it mid-event can't pair one recorder's start with another's end.
+    private SliderMetrics mMetrics;
+
+    // When enabled, every historical sample Android batches into a move is kept for velocity;
+    // thumbs and listeners still only see the final sample of each batch.
+    private final int TOUCH_HISTORY_SIZE = 64;
+    private boolean mTouchHistoryEnabled;
+    private TouchHistory[] mTouchHistories = new TouchHistory[MAX_POINTERS];
 
     private OnDIYSliderChangeListener mListener;
 
+    // Scratch point reused on every touch event so touching doesn't allocate.
+    private final PointF mTouchPoint = new PointF();
+
+    // Decides when listeners hear about changes; the view only posts its frames and does the
+    // delivering.
+    private Choreographer mChoreographer;
+    private final ValueDispatcher mDispatcher = new ValueDispatcher(new ValueDispatcher.Host() {
+        @Override
+        public void postFrame(){
+            if(mChoreographer == null){
+                mChoreographer = Choreographer.getInstance();
+            }
+            mChoreographer.postFrameCallback(mDispatchCallback);
+        }
+
+        @Override
+        public void removeFrame(){
+            mChoreographer.removeFrameCallback(mDispatchCallback);
+        }
+
+        @Override
+        public void dispatch(){
+            dispatchValueChanged();
+        }
+    });
+    private final Choreographer.FrameCallback mDispatchCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mDispatcher.doFrame(frameTimeNanos);
+        }
+    };
+
+    // Programmatic moves. An animating thumb has a start value, target and start time, and is
+    // listed in mAnimatingThumbs (mAnimationSlots holds its index there, -1 when idle). A new
+    // target for an animating thumb replaces the old one, so a burst of updates only animates
+    // toward the latest. One frame callback steps every animating thumb.
+    private final long DEFAULT_ANIMATION_DURATION_MS = 250;
+    private long mAnimationDurationNanos = DEFAULT_ANIMATION_DURATION_MS * 1000000L;
+    private float[] mAnimationFrom, mAnimationTo;
+    private long[] mAnimationStartNanos;
+    private int[] mAnimatingThumbs, mAnimationSlots;
+    private int mAnimatingCount;
+    private boolean mAnimationScheduled;
+    private final Choreographer.FrameCallback mAnimationCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mAnimationScheduled = false;
+            stepAnimations(frameTimeNanos);
+        }
+    };
+
+    // Optional inertia after a drag. Release velocity comes from the touch history, in
+    // pixels per second along the track; FlingIntegrator decays and integrates it at a fixed
+    // rate, and frames only apply the latest state to the thumbs.
+    private final float MIN_FLING_VELOCITY = 50f;
+    private final float MAX_FLING_VELOCITY = 8000f;
+    private final long VELOCITY_WINDOW_MS = 100;
+    private boolean mFlingEnabled;
+    private FlingIntegrator mFlings;
+    private boolean mFlingScheduled;
+    private final Choreographer.FrameCallback mFlingCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFlingScheduled = false;
+            stepFlings(frameTimeNanos);
+        }
+    };
+
+    // Keyboard and accessibility control of one thumb at a time, mKeyboardThumb. Left and
+    // right move it a step (the value step, or 1% of the range without one), page keys ten steps,
+    // and Tab picks the next thumb. Presses only add up in mKeySteps; one frame applies the
+    // net change as a single move, and accessibility services hear about it at most once per
+    // ACCESSIBILITY_EVENT_INTERVAL_NANOS (see KeyStepQueue).
+    private final int KEY_PAGE_STEPS = 10;
+    private final float DEFAULT_KEY_STEP_FRACTION = 0.01f;
+    private final long ACCESSIBILITY_EVENT_INTERVAL_NANOS = 100000000L;
+    private final String SEEK_BAR_CLASS_NAME = "android.widget.SeekBar";
+    private ThumbAccessibilityHelper mAccessibilityHelper;
+    private int mKeyboardThumb;
+    private final PointF mHoverPoint = new PointF();
+
+    // Values from onRestoreInstanceState still waiting for a measured track.
+    private float[] mRestoredValues;
+    private final KeyStepQueue mKeySteps = new KeyStepQueue(new KeyStepQueue.Host() {
+        @Override
+        public boolean canMove(int thumb, int steps){
+            float end = steps > 0 ? mModel.getMax() : mModel.getMin();
+            return !isThumbActive(thumb) && mModel.wouldChange(thumb, mModel.positionOf(end));
+        }
+
+        @Override
+        public boolean applySteps(int thumb, int steps){
+            return applyKeySteps(thumb, steps);
+        }
+
+        @Override
+        public void postFrame(){
+            if(mChoreographer == null){
+                mChoreographer = Choreographer.getInstance();
+            }
+            mChoreographer.postFrameCallback(mKeyCallback);
+        }
+
+        @Override
+        public void removeFrame(){
+            mChoreographer.removeFrameCallback(mKeyCallback);
+        }
+
+        @Override
+        public void announce(int thumb){
+            if(thumb == KeyStepQueue.ALL_THUMBS){
+                mAccessibilityHelper.invalidateRoot();
+            } else {
+                mAccessibilityHelper.invalidateVirtualView(thumb);
+            }
+        }
+    }, ACCESSIBILITY_EVENT_INTERVAL_NANOS);
+    private final Choreographer.FrameCallback mKeyCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mKeySteps.doFrame(frameTimeNanos);
+        }
+    };
+
     public DIYSlider(Context context, int thumbCount, float min, float max, int widthPercent){
         super(context);
 
@@ -113,8 +404,13 @@ public class DIYSlider extends View {
         mLinePaintInactive.setAntiAlias(true);
         mLinePaintInactive.setStrokeWidth(LINE_STROKE_WIDTH);
 
-        mMin = min;
-        mMax = max;
+        // Lines ignore the style; path tracks need STROKE.
+        mLinePaintActive.setStyle(Paint.Style.STROKE);
+        mLinePaintInactive.setStyle(Paint.Style.STROKE);
+
+        mLine = new SliderModel.LinearGeometry(mLineStart.x, mLineEnd.x, LINE_Y);
+        mModel = new SliderModel(mLine, thumbCount, min, max);
+        mTrack = mLine;
 
         // Default width if nothing happens.
         mWidth = 500;
@@ -130,14 +426,31 @@ public class DIYSlider extends View {
         // Default height if nothing happens.
         mHeight = (int)(THUMB_RADIUS * 2.0f + PADDING * 2.0f);
 
-        // Default thumb positions/values if nothing happens.
+        // Default thumbs to the start of the line if nothing happens.
+        mThumbStyles.add(new ThumbStyle(THUMB_INACTIVE_COLOR, THUMB_ACTIVE_COLOR));
+        mThumbCount = thumbCount;
+        mThumbs = new ThumbStore(thumbCount, THUMB_RADIUS);
         for(int i = 0; i < thumbCount; i++){
-            PointF pos = new PointF(PADDING, LINE_Y);
-            SliderThumb t = new SliderThumb(pos, mMin);
-            t.setRadius(THUMB_RADIUS);
-            mThumbs.add(t);
+            updateThumbPos(i);
         }
-        invalidate();
+
+        Arrays.fill(mPointerIds, MotionEvent.INVALID_POINTER_ID);
+        Arrays.fill(mPointerThumbs, -1);
+        for(int i = 0; i < MAX_POINTERS; i++){
+            mTouchHistories[i] = new TouchHistory(TOUCH_HISTORY_SIZE);
+        }
+        mAnimationFrom = new float[thumbCount];
+        mAnimationTo = new float[thumbCount];
+        mAnimationStartNanos = new long[thumbCount];
+        mAnimatingThumbs = new int[thumbCount];
+        mAnimationSlots = new int[thumbCount];
+        Arrays.fill(mAnimationSlots, -1);
+        mFlings = new FlingIntegrator(mModel, MIN_FLING_VELOCITY, MAX_FLING_VELOCITY);
+
+        setFocusable(true);
+        mAccessibilityHelper = new ThumbAccessibilityHelper(this);
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+        invalidateAll();
     }
 
     public void setListener(OnDIYSliderChangeListener listener){
@@ -146,6 +459,7 @@ public class DIYSlider extends View {
     }
 
     public void removeListener(){
+        flushValueChanged();
         mListener.onStopObservingTouch(this, getThumbValues());
         mListener = null;
     }
@@ -157,170 +471,1258 @@ public class DIYSlider extends View {
             mWidth = MeasureSpec.getSize(widthMeasureSpec) * mWidthPercent/100 - (int)PADDING;
         }
 
+        // Layouts measure again and again at the same size; only a line that actually moved
+        // needs the histogram's bars rebuilt.
         mLineEnd.x = mWidth;
+        if(mLine.getStart() != mLineStart.x || mLine.getEnd() != mLineEnd.x){
+            mLine.setBounds(mLineStart.x, mLineEnd.x, LINE_Y);
+            invalidateHistogramShape();
+        }
+        if(mTrackPathDirty){
+            buildPathTrack();
+        }
 
         mHeight = (int)(THUMB_RADIUS * 2.0f + PADDING * 2.0f);
+        if(mPathTrack != null){
+            mPathTrack.getBounds(mPathTrack.getStart(), mPathTrack.getEnd(), mPathBounds);
+            mHeight = Math.max(mHeight, (int)Math.ceil(mPathBounds[3] + THUMB_RADIUS + PADDING));
+        }
         if(MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED){
             mHeight = Math.min(mHeight, MeasureSpec.getSize(heightMeasureSpec));
         }
         setMeasuredDimension(mWidth + (int)PADDING, mHeight);
 
-        invalidate();
+        applyRestoredValues();
+        invalidateAll();
+    }
+
+    // Makes thumbs follow path, in view coordinates, instead of the straight line; null goes
+    // back to the line. Values run from the start of the path's first contour (min) to its
+    // end (max), and thumbs keep their values; any later contours are neither drawn nor
+    // touchable. The path is copied and flattened at the next measure, so touch events never
+    // walk the Path itself.
+    public void setTrackPath(Path path){
+        cancelFlings();
+        if(path == null){
+            mTrackPath = null;
+            mTrackPathDirty = false;
+            mTrackPathMeasure = null;
+            mPathTrack = null;
+            useTrack(mLine);
+        } else {
+            mTrackPath = new Path(path);
+            mTrackPathDirty = true;
+        }
+        requestLayout();
+        invalidateAll();
+    }
+
+    // Samples the path every PATH_SAMPLE_SPACING pixels of length into a polyline.
+    private void buildPathTrack(){
+        mTrackPathDirty = false;
+        PathMeasure measure = new PathMeasure(mTrackPath, false);
+        float length = measure.getLength();
+        int segments = Math.max(1, Math.min((int)Math.ceil(length / PATH_SAMPLE_SPACING), MAX_PATH_SEGMENTS));
+        float[] points = new float[2*(segments + 1)];
+        for(int i = 0; i <= segments; i++){
+            measure.getPosTan(length * i / segments, mPathPoint, null);
+            points[2*i] = mPathPoint[0];
+            points[2*i + 1] = mPathPoint[1];
+        }
+
+        mTrackContour.reset();
+        measure.getSegment(0f, length, mTrackContour, true);
+
+        mPathTrack = new SliderModel.PolylineGeometry(points);
+        mTrackPathMeasure = measure;
+        mTrackPathScale = mPathTrack.getEnd() > 0f ? length / mPathTrack.getEnd() : 0f;
+        useTrack(mPathTrack);
+    }
+
+    private void useTrack(SliderModel.Geometry track){
+        mTrack = track;
+        mModel.setGeometry(track);
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbPos(i);
+        }
+        invalidateHistogramShape();
+    }
+
+    private void onHistogramChanged(){
+        invalidateAll();
+    }
+
+    private void invalidateHistogramShape(){
+        if(mHistogram != null){
+            mHistogram.invalidateShape();
+        }
+    }
+
+    public void setDispatchMode(int mode){
+        mDispatcher.setMode(mode, System.nanoTime());
+    }
+
+    // Records touch, listener and draw timings into metrics; null, the default, stops. Without
+    // metrics the hot paths don't even read the clock.
+    public void setMetrics(SliderMetrics metrics){
+        mMetrics = metrics;
+    }
+
+    public SliderMetrics getMetrics(){
+        return mMetrics;
+    }
+
+    // Caps coalesced dispatch below the display rate. 0 means once per frame.
+    public void setMaxDispatchRate(float callbacksPerSecond){
+        mDispatcher.setMaxRate(callbacksPerSecond);
+    }
+
+    @Override
+    protected void onDetachedFromWindow(){
+        super.onDetachedFromWindow();
+        cancelFlings();
+        finishAnimations();
+        mKeySteps.cancel();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState(){
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        SliderState saved = SliderState.capture(mModel, mKeyboardThumb);
+        // Animating thumbs are saved where they're headed.
+        for(int i = 0; i < mAnimatingCount; i++){
+            int thumb = mAnimatingThumbs[i];
+            saved.setValue(thumb, mAnimationTo[thumb]);
+        }
+        state.mState = saved;
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable parcelable){
+        if(!(parcelable instanceof SavedState)){
+            super.onRestoreInstanceState(parcelable);
+            return;
+        }
+        SavedState state = (SavedState)parcelable;
+        super.onRestoreInstanceState(state.getSuperState());
+
+        if(state.mState.getKeyboardThumb() < mThumbCount){
+            mKeyboardThumb = state.mState.getKeyboardThumb();
+        }
+        mRestoredValues = state.mState.getValues();
+        // Before the first measure the line has no length to put values on; onMeasure
+        // applies them then.
+        if(mLineEnd.x > mLineStart.x){
+            applyRestoredValues();
+        }
+    }
+
+    // Puts thumbs back on restored values with one notification, like setThumbValues.
+    private void applyRestoredValues(){
+        if(mRestoredValues == null){
+            return;
+        }
+        cancelAnimations();
+        cancelFlings();
+        setThumbValues(mRestoredValues, false);
+        mRestoredValues = null;
+        invalidateAll();
+    }
+
+    public void setTouchHistoryEnabled(boolean enabled){
+        mTouchHistoryEnabled = enabled;
+        for(int i = 0; i < MAX_POINTERS; i++){
+            mTouchHistories[i].clear();
+        }
+    }
+
+    // Copies the samples of the latest drag of thumb (an index into the thumbs), oldest first,
+    // into positions (x) and times (ms). Returns how many samples were copied.
+    public int getTouchHistory(int thumb, float[] positions, long[] times){
+        int slot = findThumbSlot(thumb);
+        if(slot < 0){
+            return 0;
+        }
+
+        TouchHistory history = mTouchHistories[slot];
+        int count = Math.min(history.size(), Math.min(positions.length, times.length));
+        int skip = history.size() - count;
+        for(int i = 0; i < count; i++){
+            positions[i] = history.getPosition(skip + i);
+            times[i] = history.getTime(skip + i);
+        }
+        return count;
+    }
+
+    // Lets a released thumb keep moving with the finger's velocity and coast to a stop.
+    // Records touch history for the velocity even if setTouchHistoryEnabled is off.
+    public void setFlingEnabled(boolean enabled){
+        mFlingEnabled = enabled;
+        if(!mFlingEnabled){
+            cancelFlings();
+        }
+    }
+
+    // Snaps thumb values to multiples of step from min; 0 turns it off. Listeners then only
+    // hear about a thumb when it crosses onto a different step.
+    public void setValueStep(float step){
+        mModel.setStep(step);
+        updateThumbLabels();
+    }
+
+    // Spreads values along the track through scale, e.g. new SliderModel.LogScale(max / min)
+    // for a frequency range; null goes back to linear. Thumbs keep their values and move to
+    // wherever the new scale puts them.
+    public void setValueScale(SliderModel.ValueScale scale){
+        cancelFlings();
+        mModel.setValueScale(scale);
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbPos(i);
+        }
+        invalidateHistogramShape();
+        invalidateAll();
+    }
+
+    public SliderModel.ValueScale getValueScale(){
+        return mModel.getValueScale();
+    }
+
+    // Draws a histogram of data[0..count) under the track, counted into bins equal slices of
+    // the range; null clears it. Only the bin counts are kept, and the bars are rebuilt from
+    // them when the data or the track's shape changes, not when thumbs move.
+    public void setHistogramData(float[] data, int count, int bins){
+        if(data == null){
+            if(mHistogram != null){
+                mHistogram.clear();
+            }
+        } else {
+            if(mHistogram == null){
+                mHistogram = new HistogramOverlay(mModel.getMin(), mModel.getMax(),
+                        HISTOGRAM_COLOR, HISTOGRAM_HEIGHT);
+            }
+            mHistogram.setData(data, count, bins);
+        }
+        onHistogramChanged();
+    }
+
+    // Adds data[offset..offset+count) to the histogram's bins without recounting what's
+    // already there. Does nothing before setHistogramData.
+    public void appendHistogramData(float[] data, int offset, int count){
+        if(mHistogram == null){
+            return;
+        }
+        mHistogram.append(data, offset, count);
+        onHistogramChanged();
+    }
+
+    public HistogramOverlay getHistogram(){
+        return mHistogram;
+    }
+
+    // Gives one thumb its own colors. Thumbs with the same pair of colors share Paints.
+    public void setThumbColors(int thumb, int inactiveColor, int activeColor){
+        int style = findThumbStyle(inactiveColor, activeColor);
+        if(style < 0){
+            style = mThumbStyles.size();
+            mThumbStyles.add(new ThumbStyle(inactiveColor, activeColor));
+        }
+
+        beginThumbChange(thumb);
+        mThumbs.setStyle(thumb, style);
+        endThumbChange(thumb, true);
+        invalidateDirtyRegion();
+    }
+
+    public void resetThumbColors(int thumb){
+        setThumbColors(thumb, THUMB_INACTIVE_COLOR, THUMB_ACTIVE_COLOR);
+    }
+
+    // Draws one thumb at a different size. Touch slop stays based on the default radius.
+    public void setThumbRadius(int thumb, float radius){
+        if(radius == mThumbs.getRadius(thumb)){
+            return;
+        }
+
+        beginThumbChange(thumb);
+        mThumbs.setRadius(thumb, radius);
+        endThumbChange(thumb, true);
+        invalidateDirtyRegion();
+    }
+
+    private int findThumbStyle(int inactiveColor, int activeColor){
+        for(int i = 0; i < mThumbStyles.size(); i++){
+            ThumbStyle style = mThumbStyles.get(i);
+            if(style.mInactiveColor == inactiveColor && style.mActiveColor == activeColor){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Draws each thumb's value on it.
+    public void setThumbLabelsEnabled(boolean enabled){
+        if(enabled == mThumbLabelsEnabled){
+            return;
+        }
+        mThumbLabelsEnabled = enabled;
+
+        if(mThumbLabelsEnabled && mLabelPaint == null){
+            mLabelPaint = new Paint();
+            mLabelPaint.setColor(LABEL_COLOR);
+            mLabelPaint.setAntiAlias(true);
+            mLabelPaint.setTextSize(LABEL_TEXT_SIZE);
+        }
+        if(mThumbLabelsEnabled){
+            mThumbLabels = new ValueLabel[mThumbCount];
+            for(int i = 0; i < mThumbCount; i++){
+                mThumbLabels[i] = new ValueLabel(mLabelPaint);
+                updateThumbLabel(i);
+            }
+        } else {
+            mThumbLabels = null;
+        }
+        invalidateAll();
+    }
+
+    // Decimal places shown on thumb labels (0 to 6). Ignored with whole-number steps.
+    public void setThumbLabelDecimals(int decimals){
+        mThumbLabelDecimals = decimals;
+        updateThumbLabels();
+    }
+
+    private void updateThumbLabels(){
+        if(!mThumbLabelsEnabled){
+            return;
+        }
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbLabel(i);
+        }
+        invalidateAll();
     }
 
     public void setup(){
+        mRestoredValues = null;
+        cancelAnimations();
+        cancelFlings();
+
         // Determine equidistant spacing between thumbs along line
-        float thumbSpacing = mWidth/(float)(mThumbs.size());
+        float thumbSpacing = mWidth/(float)(mThumbCount);
+        float trackStart = PADDING;
+        if(mPathTrack != null){
+            thumbSpacing = mPathTrack.getEnd()/(float)(mThumbCount);
+            trackStart = mPathTrack.getStart();
+        }
 
-        for(int i = 0; i < mThumbs.size(); i++){
-            float x = thumbSpacing * (i) + PADDING;
-            SliderThumb t = mThumbs.get(i);
-            t.setX(x);
-            float value = getPositionValueOnSlider(t.mPos);
-            t.setValue(value);
+        // Last to first, so with ordering on no thumb is blocked by one still at the start.
+        for(int i = mThumbCount - 1; i >= 0; i--){
+            float position = thumbSpacing * (i) + trackStart;
+            setThumbPosition(i, position);
         }
-        invalidate();
+        invalidateAll();
+    }
+
+    // How long animated setThumbValue(s) calls take to reach their targets. 0 jumps straight there.
+    public void setAnimationDuration(long millis){
+        mAnimationDurationNanos = Math.max(0L, millis) * 1000000L;
+    }
+
+    public void setThumbValue(int thumb, float value){
+        setThumbValue(thumb, value, false);
+    }
+
+    // Moves thumb to value (clamped to min..max), either right away or animated. A thumb
+    // being dragged stays with the finger and ignores this.
+    public void setThumbValue(int thumb, float value, boolean animate){
+        boolean changed = moveThumbTo(thumb, value, animate, System.nanoTime());
+        finishThumbMoves(changed);
+    }
+
+    // Moves thumb i to values[i] for every thumb values covers, with one listener
+    // notification, one invalidate and one update for readThumbValues for the whole batch.
+    public void setThumbValues(float[] values, boolean animate){
+        long now = System.nanoTime();
+        int count = Math.min(values.length, mThumbCount);
+        boolean changed = false;
+        mModel.beginUpdate();
+        // Thumbs moving up go last to first and thumbs moving down first to last, so with
+        // ordering on an ordered batch never runs into a neighbour that hasn't moved yet.
+        for(int i = count - 1; i >= 0; i--){
+            if(values[i] > mModel.getValue(i) && moveThumbTo(i, values[i], animate, now)){
+                changed = true;
+            }
+        }
+        for(int i = 0; i < count; i++){
+            if(values[i] <= mModel.getValue(i) && moveThumbTo(i, values[i], animate, now)){
+                changed = true;
+            }
+        }
+        mModel.endUpdate();
+        finishThumbMoves(changed);
+    }
+
+    // Keeps thumb i at or after thumb i-1, at least minSeparation (in value units) apart.
+    // ORDERING_BLOCK stops a dragged thumb at its neighbours, ORDERING_PUSH shoves them along.
+    // Turning it on sorts the current values onto the thumbs in order.
+    public void setThumbOrdering(int ordering, float minSeparation){
+        mModel.setOrdering(ordering, minSeparation);
+        if(ordering == ORDERING_NONE){
+            return;
+        }
+
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbPos(i);
+        }
+        notifyValuesChanged();
+        invalidateAll();
     }
 
     @Override
-    protected synchronized void onDraw(Canvas canvas){
+    protected void onDraw(Canvas canvas){
         super.onDraw(canvas);
+        SliderMetrics metrics = mMetrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0L;
+        recordRedrawnPixels();
+        if(mHistogram != null){
+            mHistogram.draw(canvas, mModel);
+        }
+
+        if(mPathTrack != null){
+            drawPathTrack(canvas);
+        } else {
+            drawLineTrack(canvas);
+        }
+        for(int i = 0; i < mThumbCount; i++){
+            drawThumb(canvas, i);
+        }
+        if(metrics != null){
+            metrics.record(SliderMetrics.METRIC_DRAW, startNanos, System.nanoTime());
+        }
+    }
 
-        // Check number of thumbs in slider to determine where "active" line color starts/ends.
-        // More than 1 thumb: "active" is between original first and last thumbs.
-        // Exactly 1 thumb: "active" is from beginning of line to thumb.
-        // 0 thumbs: No part of the line is "active".
-        PointF activeLineStart, activeLineEnd;
-        if(mThumbs.size() > 1){
-            activeLineStart = mThumbs.get(0).mPos;
-            activeLineEnd = mThumbs.get(mThumbs.size() - 1).mPos;
-        } else if (mThumbs.size() == 1){
-            activeLineStart = mLineStart;
-            activeLineEnd = mThumbs.get(0).mPos;
+    // Check number of thumbs in slider to determine where "active" line color starts/ends.
+    // More than 1 thumb: "active" is between original first and last thumbs.
+    // Exactly 1 thumb: "active" is from beginning of line to thumb.
+    // 0 thumbs: No part of the line is "active".
+    private void drawLineTrack(Canvas canvas){
+        float activeLineStartX, activeLineEndX;
+        if(mThumbCount > 1){
+            activeLineStartX = mThumbs.getX(0);
+            activeLineEndX = mThumbs.getX(mThumbCount - 1);
+        } else if (mThumbCount == 1){
+            activeLineStartX = mLineStart.x;
+            activeLineEndX = mThumbs.getX(0);
         } else {
-            activeLineStart = mLineEnd;
-            activeLineEnd = mLineEnd;
+            activeLineStartX = mLineEnd.x;
+            activeLineEndX = mLineEnd.x;
         }
 
         drawLineFromPoints(mLineStart, mLineEnd, canvas, mLinePaintInactive);
-        drawLineFromPoints(activeLineStart, activeLineEnd, canvas, mLinePaintActive);
+        canvas.drawLine(activeLineStartX, LINE_Y, activeLineEndX, LINE_Y, mLinePaintActive);
+    }
 
-        for(SliderThumb t : mThumbs){
-            t.draw(canvas);
+    // Same active stretch as the line, cut out of the path. getSegment only appends, so the
+    // reused mPathActive is reset first.
+    private void drawPathTrack(Canvas canvas){
+        canvas.drawPath(mTrackContour, mLinePaintInactive);
+        if(mThumbCount == 0){
+            return;
         }
+
+        float from = mThumbCount > 1 ? mModel.getPosition(0) : mPathTrack.getStart();
+        float to = mModel.getPosition(mThumbCount - 1);
+        mPathActive.reset();
+        mTrackPathMeasure.getSegment(Math.min(from, to) * mTrackPathScale,
+                Math.max(from, to) * mTrackPathScale, mPathActive, true);
+        canvas.drawPath(mPathActive, mLinePaintActive);
     }
 
     private double distanceBetweenPoints(PointF start, PointF end){
-        double xDiff = end.x - start.x;
-        double yDiff = end.y - start.y;
-        return Math.sqrt(Math.pow(xDiff, 2) + Math.pow(yDiff, 2));
+        return SliderModel.distanceBetweenPoints(start.x, start.y, end.x, end.y);
     }
 
     private void drawLineFromPoints(PointF start, PointF end, Canvas canvas, Paint mPaint){
         canvas.drawLine(start.x, start.y, end.x, end.y, mPaint);
     }
 
-    private void clamp(){
-        if (mActiveThumb.getX() > mLineEnd.x) {
-            mActiveThumb.setX(mLineEnd.x);
-        } else if (mActiveThumb.getX() < mLineStart.x) {
-            mActiveThumb.setX(mLineStart.x);
+    private boolean isOnTrack(PointF point){
+        if(mPathTrack != null){
+            float position = mPathTrack.project(point.x, point.y);
+            return SliderModel.distanceBetweenPoints(point.x, point.y, mPathTrack.getX(position),
+                    mPathTrack.getY(position)) <= ALLOWED_TOUCH_DIFFERENCE;
         }
-
-        if (mActiveThumb.getY() != LINE_Y) {
-            mActiveThumb.setY(LINE_Y);
-        }
-    }
-
-    private boolean isOnLine(PointF point){
         return (point.x >= mLineStart.x - ALLOWED_TOUCH_DIFFERENCE &&
                 point.x <= mLineEnd.x + ALLOWED_TOUCH_DIFFERENCE &&
                 point.y >= LINE_Y - ALLOWED_TOUCH_DIFFERENCE &&
                 point.y <= LINE_Y + ALLOWED_TOUCH_DIFFERENCE);
     }
 
-    private float getPositionValueOnSlider(PointF pos){
-        float value = (pos.x - mLineStart.x) / (mWidth - PADDING);
-        value = value * (mMax - mMin) + mMin;
-        return value;
+    private void notifyValuesChanged(){
+        mDispatcher.valuesChanged();
     }
 
-    private void updateThumbValue(){
-        float value = getPositionValueOnSlider(mActiveThumb.mPos);
-        mActiveThumb.setValue(value);
-
+    private void dispatchValueChanged(){
         // Only bug the listener if there's a thumb to report.
-        if(mListener != null && mThumbs.size() > 0){
+        if(mListener != null && mThumbCount > 0){
+            SliderMetrics metrics = mMetrics;
+            long startNanos = metrics != null ? System.nanoTime() : 0L;
             mListener.onValueChanged(this, getThumbValues());
+            if(metrics != null){
+                metrics.record(SliderMetrics.METRIC_LISTENER, startNanos, System.nanoTime());
+            }
         }
     }
 
-    private SliderThumb getClosestThumb(PointF touch){
-        double closestThumbDistance = distanceBetweenPoints(mLineStart, mLineEnd);
-        SliderThumb closest = null;
-        for(SliderThumb t : mThumbs){
-            double distanceToThumb = distanceBetweenPoints(touch, t.mPos);
-            if(distanceToThumb < closestThumbDistance){
-                closest = t;
-                closestThumbDistance = distanceToThumb;
+    // Returns whether the thumb's value changed right away; an animated move changes it later.
+    private boolean moveThumbTo(int thumb, float value, boolean animate, long nowNanos){
+        if(isThumbActive(thumb)){
+            return false;
+        }
+
+        stopFling(thumb);
+        if(!animate || mAnimationDurationNanos == 0){
+            stopAnimation(thumb);
+            beginThumbChange(thumb);
+            boolean changed = applyThumbValue(thumb, value);
+            endThumbChange(thumb, false);
+            return changed;
+        }
+
+        // Restart from wherever the thumb is now, including mid-way to an older target.
+        if(mAnimationSlots[thumb] < 0){
+            mAnimationSlots[thumb] = mAnimatingCount;
+            mAnimatingThumbs[mAnimatingCount++] = thumb;
+        }
+        mAnimationFrom[thumb] = mModel.valueAt(mModel.getPosition(thumb));
+        mAnimationTo[thumb] = value;
+        mAnimationStartNanos[thumb] = nowNanos;
+        return false;
+    }
+
+    private void finishThumbMoves(boolean changed){
+        if(changed){
+            notifyValuesChanged();
+        }
+        invalidateDirtyRegion();
+        if(mAnimatingCount > 0){
+            scheduleAnimation();
+        }
+    }
+
+    private void stepAnimations(long frameTimeNanos){
+        boolean changed = false;
+        mModel.beginUpdate();
+        // Backwards, so a finished thumb swapped out of the list is one already stepped.
+        for(int i = mAnimatingCount - 1; i >= 0; i--){
+            int thumb = mAnimatingThumbs[i];
+            float from = mAnimationFrom[thumb];
+            float to = mAnimationTo[thumb];
+            // Frame time can be a little older than the call that started the animation.
+            long elapsed = Math.max(frameTimeNanos - mAnimationStartNanos[thumb], 0L);
+
+            float value;
+            boolean finished = elapsed >= mAnimationDurationNanos;
+            if(finished){
+                value = to;
+            } else {
+                // Decelerate into the target.
+                float fraction = elapsed / (float)mAnimationDurationNanos;
+                float eased = 1f - (1f - fraction)*(1f - fraction);
+                value = from + (to - from)*eased;
+            }
+
+            float before = mModel.getPosition(thumb);
+            beginThumbChange(thumb);
+            if(applyThumbValue(thumb, value)){
+                changed = true;
+            }
+            endThumbChange(thumb, false);
+
+            // With ordering on, a neighbour still on its way can block the last step. Keep
+            // trying while the thumb makes progress.
+            float position = mModel.getPosition(thumb);
+            if(finished && (position == before || position == mModel.clamp(mModel.positionOf(to)))){
+                stopAnimation(thumb);
+            }
+        }
+        mModel.endUpdate();
+        finishThumbMoves(changed);
+    }
+
+    private void stopAnimation(int thumb){
+        int slot = mAnimationSlots[thumb];
+        if(slot < 0){
+            return;
+        }
+        int last = mAnimatingThumbs[--mAnimatingCount];
+        mAnimatingThumbs[slot] = last;
+        mAnimationSlots[last] = slot;
+        mAnimationSlots[thumb] = -1;
+    }
+
+    // Drops every animation where it is.
+    private void cancelAnimations(){
+        while(mAnimatingCount > 0){
+            stopAnimation(mAnimatingThumbs[mAnimatingCount - 1]);
+        }
+    }
+
+    // Jumps every animation to its target, e.g. when there are no more frames coming.
+    private void finishAnimations(){
+        if(mAnimationScheduled){
+            mChoreographer.removeFrameCallback(mAnimationCallback);
+            mAnimationScheduled = false;
+        }
+
+        boolean changed = false;
+        mModel.beginUpdate();
+        while(mAnimatingCount > 0){
+            int thumb = mAnimatingThumbs[mAnimatingCount - 1];
+            stopAnimation(thumb);
+            beginThumbChange(thumb);
+            if(applyThumbValue(thumb, mAnimationTo[thumb])){
+                changed = true;
+            }
+            endThumbChange(thumb, false);
+        }
+        mModel.endUpdate();
+        finishThumbMoves(changed);
+    }
+
+    private void scheduleAnimation(){
+        if(mAnimationScheduled){
+            return;
+        }
+        if(mChoreographer == null){
+            mChoreographer = Choreographer.getInstance();
+        }
+        mAnimationScheduled = true;
+        mChoreographer.postFrameCallback(mAnimationCallback);
+    }
+
+    private void startFling(int thumb, float velocity){
+        if(mFlings.start(thumb, velocity, System.nanoTime())){
+            scheduleFling();
+        }
+    }
+
+    private void stepFlings(long frameTimeNanos){
+        mFlings.advance(frameTimeNanos);
+
+        boolean changed = false;
+        mModel.beginUpdate();
+        // Backwards, so a finished thumb swapped out of the list is one already applied.
+        for(int i = mFlings.getCount() - 1; i >= 0; i--){
+            int thumb = mFlings.getThumb(i);
+            beginThumbChange(thumb);
+            if(setThumbPosition(thumb, mFlings.getPosition(thumb))){
+                changed = true;
+            }
+            endThumbChange(thumb, false);
+            mFlings.applied(thumb);
+            if(mFlings.isFinished(thumb)){
+                mFlings.stop(thumb);
+            }
+        }
+        mModel.endUpdate();
+
+        if(changed){
+            notifyValuesChanged();
+        }
+        invalidateDirtyRegion();
+        if(mFlings.getCount() > 0){
+            scheduleFling();
+        } else {
+            // Same as the end of a drag: listeners get the resting values now.
+            flushValueChanged();
+        }
+    }
+
+    private void stopFling(int thumb){
+        mFlings.stop(thumb);
+    }
+
+    // Stops every fling where it is.
+    private void cancelFlings(){
+        if(mFlingScheduled){
+            mChoreographer.removeFrameCallback(mFlingCallback);
+            mFlingScheduled = false;
+        }
+        mFlings.cancel();
+    }
+
+    private void scheduleFling(){
+        if(mFlingScheduled){
+            return;
+        }
+        if(mChoreographer == null){
+            mChoreographer = Choreographer.getInstance();
+        }
+        mFlingScheduled = true;
+        mChoreographer.postFrameCallback(mFlingCallback);
+    }
+
+    // Delivers any coalesced values right away so listeners always see the final position.
+    private void flushValueChanged(){
+        mDispatcher.flush(System.nanoTime());
+    }
+
+    // Index of the nearest thumb, or -1. On the line a touch anywhere along it takes the
+    // nearest thumb. A path can double back, so the thumb nearest in a straight line may be a
+    // long way round the track; there a touch only grabs a thumb within the touch allowance.
+    private int getClosestThumb(PointF touch){
+        if(mPathTrack != null){
+            return mModel.nearestThumb(touch.x, touch.y, ALLOWED_TOUCH_DIFFERENCE);
+        }
+        return mModel.nearestThumb(touch.x, touch.y, distanceBetweenPoints(mLineStart, mLineEnd));
+    }
+
+    // Number of pixels the last onDraw was asked to repaint.
+    public long getLastFrameRedrawnPixels(){
+        return mLastFrameRedrawnPixels;
+    }
+
+    private void invalidateAll(){
+        mFullRedraw = true;
+        invalidate();
+    }
+
+    // Moves the thumb to x, clamped to the line, and updates its value. Returns whether the
+    // value changed.
+    private boolean setThumbPosition(int thumb, float position){
+        boolean changed = mModel.setPosition(thumb, position);
+        updateThumbPos(thumb);
+        updatePushedThumbs(thumb);
+        return changed;
+    }
+
+    // Moves the thumb to wherever value sits on the track. Returns whether the value changed.
+    private boolean applyThumbValue(int thumb, float value){
+        boolean changed = mModel.setValue(thumb, value);
+        updateThumbPos(thumb);
+        updatePushedThumbs(thumb);
+        return changed;
+    }
+
+    private boolean isThumbActive(int thumb){
+        return mThumbs.isActive(thumb);
+    }
+
+    private void setThumbActive(int thumb, boolean active){
+        mThumbs.setActive(thumb, active);
+    }
+
+    private float getThumbRadius(int thumb){
+        return mThumbs.getRadius(thumb);
+    }
+
+    // Half the size of the box the thumb draws into: its circle, or its label if wider.
+    private float getThumbExtent(int thumb){
+        float radius = getThumbRadius(thumb);
+        if(mThumbLabels == null){
+            return radius;
+        }
+        ValueLabel label = mThumbLabels[thumb];
+        return Math.max(radius, Math.max(label.getWidth(), label.getDescent() - label.getAscent())/2);
+    }
+
+    private void updateThumbPos(int thumb){
+        float position = mModel.getPosition(thumb);
+        mThumbs.setPosition(thumb, mTrack.getX(position), mTrack.getY(position));
+        updateThumbLabel(thumb);
+    }
+
+    // Integer steps are shown straight from the step index; anything else is rounded.
+    private void updateThumbLabel(int thumb){
+        if(mThumbLabels == null){
+            return;
+        }
+        if(mModel.hasIntegerSteps()){
+            mThumbLabels[thumb].setValue(mModel.getIntValue(thumb));
+        } else {
+            mThumbLabels[thumb].setValue(mModel.getValue(thumb), mThumbLabelDecimals);
+        }
+    }
+
+    private void drawThumb(Canvas canvas, int thumb){
+        ThumbStyle style = mThumbStyles.get(mThumbs.getStyle(thumb));
+        // The thumb the keys move is highlighted while the slider has focus.
+        boolean highlighted = isThumbActive(thumb) || (thumb == mKeyboardThumb && isFocused());
+        Paint paint = highlighted ? style.mActivePaint : style.mInactivePaint;
+        canvas.drawCircle(mThumbs.getX(thumb), mThumbs.getY(thumb), getThumbRadius(thumb), paint);
+        if(mThumbLabels != null){
+            mThumbLabels[thumb].drawCentered(canvas, mThumbs.getX(thumb), mThumbs.getY(thumb));
+        }
+    }
+
+    private void beginThumbChange(int thumb){
+        mPrevThumbPos.set(mThumbs.getX(thumb), mThumbs.getY(thumb));
+        mPrevThumbExtent = getThumbExtent(thumb);
+        mPrevThumbPosition = mModel.getPosition(thumb);
+    }
+
+    // Dirties the thumb's old and new circles (or labels) plus the track between them. Unless
+    // redraw is forced (e.g. the thumb changed color), a thumb that didn't move dirties nothing.
+    private void endThumbChange(int thumb, boolean forceRedraw){
+        if(!forceRedraw && mThumbs.getX(thumb) == mPrevThumbPos.x && mThumbs.getY(thumb) == mPrevThumbPos.y){
+            return;
+        }
+        markThumbMoved(thumb, mPrevThumbPos.x, mPrevThumbPos.y, mPrevThumbExtent, mPrevThumbPosition);
+    }
+
+    // Pushing (ORDERING_PUSH) can move thumbs besides the one being set. Their old spots
+    // are read before updating, so this doesn't disturb an open beginThumbChange.
+    private void updatePushedThumbs(int thumb){
+        for(int i = mModel.getMovedFirst(); i <= mModel.getMovedLast(); i++){
+            if(i == thumb){
+                continue;
             }
+            float prevX = mThumbs.getX(i);
+            float prevY = mThumbs.getY(i);
+            float prevExtent = getThumbExtent(i);
+            float prevPosition = mTrack.project(prevX, prevY);
+            updateThumbPos(i);
+            markThumbMoved(i, prevX, prevY, prevExtent, prevPosition);
+        }
+    }
+
+    private void markThumbMoved(int thumb, float prevX, float prevY, float prevExtent, float prevPosition){
+        float x = mThumbs.getX(thumb);
+        float y = mThumbs.getY(thumb);
+        float r = prevExtent + DIRTY_MARGIN;
+        mDirtyRegion.union(prevX - r, prevY - r, prevX + r, prevY + r);
+        r = getThumbExtent(thumb) + DIRTY_MARGIN;
+        mDirtyRegion.union(x - r, y - r, x + r, y + r);
+
+        // The line only changes between the old and new x, so that stretch covers both the
+        // inactive and active segments. A path can wander anywhere in between, so its box
+        // comes from the track.
+        float stroke = LINE_STROKE_WIDTH/2 + DIRTY_MARGIN;
+        if(mPathTrack != null){
+            mPathTrack.getBounds(prevPosition, mModel.getPosition(thumb), mPathBounds);
+            mDirtyRegion.union(mPathBounds[0] - stroke, mPathBounds[1] - stroke,
+                    mPathBounds[2] + stroke, mPathBounds[3] + stroke);
+            return;
         }
+        mDirtyRegion.union(Math.min(x, prevX) - stroke, Math.min(y, prevY) - stroke,
+                Math.max(x, prevX) + stroke, Math.max(y, prevY) + stroke);
+    }
 
-        return closest;
+    // Invalidates only what changed since the last call, and nothing if nothing did.
+    private void invalidateDirtyRegion(){
+        if(mDirtyRegion.isEmpty()){
+            return;
+        }
+
+        mDirtyRegion.roundOut(mDirtyRect);
+        mDirtyRegion.setEmpty();
+        mFrameDirtyRect.union(mDirtyRect);
+        invalidate(mDirtyRect);
+    }
+
+    private void recordRedrawnPixels(){
+        if(mFullRedraw){
+            mLastFrameRedrawnPixels = (long)getWidth() * getHeight();
+        } else {
+            mLastFrameRedrawnPixels = (long)mFrameDirtyRect.width() * mFrameDirtyRect.height();
+        }
+        mFullRedraw = false;
+        mFrameDirtyRect.setEmpty();
+    }
+
+    // Records every sample batched into this event for the pointer at index, oldest first,
+    // ending with the thumb's final position. Only the projection onto the track runs per sample.
+    private void recordTouchHistory(MotionEvent event, int index, int slot){
+        TouchHistory history = mTouchHistories[slot];
+        for(int h = 0; h < event.getHistorySize(); h++){
+            history.add(mTrack.project(event.getHistoricalX(index, h), event.getHistoricalY(index, h)),
+                    event.getHistoricalEventTime(h));
+        }
+        history.add(mModel.getPosition(mPointerThumbs[slot]), event.getEventTime());
+    }
+
+    private int findPointerSlot(int pointerId){
+        for(int slot = 0; slot < MAX_POINTERS; slot++){
+            if(mPointerIds[slot] == pointerId){
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int findThumbSlot(int thumb){
+        for(int slot = 0; slot < MAX_POINTERS; slot++){
+            if(mPointerThumbs[slot] == thumb){
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Hands the thumb nearest the pointer at index to that pointer, if there is a free slot.
+    private void grabThumb(MotionEvent event, int index){
+        int slot = findPointerSlot(MotionEvent.INVALID_POINTER_ID);
+        if(slot < 0){
+            return;
+        }
+
+        mTouchPoint.set(event.getX(index), event.getY(index));
+        int thumb = isOnTrack(mTouchPoint) ? getClosestThumb(mTouchPoint) : -1;
+        // A thumb already held by another finger stays with that finger.
+        if(thumb < 0 || isThumbActive(thumb)){
+            return;
+        }
+
+        // The finger takes over from any programmatic animation or fling.
+        stopAnimation(thumb);
+        stopFling(thumb);
+
+        // Forget any older drag of this thumb so its history only lives in one slot.
+        int oldSlot = findThumbSlot(thumb);
+        if(oldSlot >= 0){
+            mPointerThumbs[oldSlot] = -1;
+        }
+        mPointerIds[slot] = event.getPointerId(index);
+        mPointerThumbs[slot] = thumb;
+
+        beginThumbChange(thumb);
+        setThumbActive(thumb, true);
+
+        if(setThumbPosition(thumb, mTrack.project(mTouchPoint.x, mTouchPoint.y))){
+            mValuesChanged = true;
+        }
+        endThumbChange(thumb, true);
+
+        if(mTouchHistoryEnabled || mFlingEnabled){
+            mTouchHistories[slot].clear();
+            recordTouchHistory(event, index, slot);
+        }
+    }
+
+    private void moveThumb(MotionEvent event, int slot, int index){
+        if(index < 0){
+            return;
+        }
+
+        int thumb = mPointerThumbs[slot];
+        beginThumbChange(thumb);
+        if(setThumbPosition(thumb, mTrack.project(event.getX(index), event.getY(index)))){
+            mValuesChanged = true;
+        }
+        endThumbChange(thumb, false);
+
+        if(mTouchHistoryEnabled || mFlingEnabled){
+            recordTouchHistory(event, index, slot);
+        }
+    }
+
+    private void releaseThumb(int slot){
+        int thumb = mPointerThumbs[slot];
+
+        // We're done listening to this nonsense.
+        beginThumbChange(thumb);
+        setThumbActive(thumb, false);
+        endThumbChange(thumb, true);
+        mPointerIds[slot] = MotionEvent.INVALID_POINTER_ID;
     }
 
     @Override
     public boolean onTouchEvent (MotionEvent event) {
-        switch (event.getAction()) {
+        SliderMetrics metrics = mMetrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0L;
+        int action = event.getActionMasked();
+        int index = event.getActionIndex();
+        switch (action) {
             case MotionEvent.ACTION_DOWN:
-                PointF eventPoint = new PointF(event.getX(), event.getY());
-                if(isOnLine(eventPoint) && mThumbs.size() > 0){
-                    mActiveThumb = getClosestThumb(eventPoint);
-                    mActiveThumb.setColor(THUMB_ACTIVE_COLOR);
-                    mActiveThumb.setActive(true);
-
-                    mActiveThumb.setX(event.getX());
-                    mActiveThumb.setY(event.getY());
-                    clamp();
-                    updateThumbValue();
-                }
+            case MotionEvent.ACTION_POINTER_DOWN:
+                grabThumb(event, index);
                 break;
 
             case MotionEvent.ACTION_MOVE:
-                if(mActiveThumb != null){
-                    mActiveThumb.setX(event.getX());
-                    mActiveThumb.setY(event.getY());
-                    clamp();
-                    updateThumbValue();
+                // Every pointer's thumb moves, then other threads see the new values together.
+                mModel.beginUpdate();
+                for(int slot = 0; slot < MAX_POINTERS; slot++){
+                    if(mPointerIds[slot] != MotionEvent.INVALID_POINTER_ID){
+                        moveThumb(event, slot, event.findPointerIndex(mPointerIds[slot]));
+                    }
                 }
+                mModel.endUpdate();
                 break;
 
             case MotionEvent.ACTION_UP:
-                if(mActiveThumb != null){
-                    mActiveThumb.setX(event.getX());
-                    mActiveThumb.setY(event.getY());
-                    clamp();
-                    updateThumbValue();
-
-                    // We're done listening to this nonsense.
-                    mActiveThumb.setColor(THUMB_INACTIVE_COLOR);
-                    mActiveThumb.setActive(false);
-                    mActiveThumb = null;
+            case MotionEvent.ACTION_POINTER_UP:
+                int slot = findPointerSlot(event.getPointerId(index));
+                if(slot >= 0){
+                    moveThumb(event, slot, index);
+                    if(mFlingEnabled){
+                        startFling(mPointerThumbs[slot],
+                                mTouchHistories[slot].getVelocity(VELOCITY_WINDOW_MS));
+                    }
+                    releaseThumb(slot);
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                for(int i = 0; i < MAX_POINTERS; i++){
+                    if(mPointerIds[i] != MotionEvent.INVALID_POINTER_ID){
+                        releaseThumb(i);
+                    }
                 }
                 break;
         }
 
-        invalidate();
+        // One notification covers every thumb this event moved.
+        if(mValuesChanged){
+            mValuesChanged = false;
+            if(metrics != null){
+                // Event times are uptimeMillis, which runs on the same clock as nanoTime.
+                metrics.record(SliderMetrics.METRIC_TOUCH_TO_VALUE, event.getEventTime() * 1000000L,
+                        System.nanoTime());
+            }
+            notifyValuesChanged();
+        }
+        if(action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL){
+            flushValueChanged();
+        }
+
+        invalidateDirtyRegion();
+        if(metrics != null){
+            metrics.record(SliderMetrics.METRIC_TOUCH_HANDLING, startNanos, System.nanoTime());
+        }
         return true;
     }
 
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event){
+        if(mThumbCount > 0){
+            switch(keyCode){
+                // A key that can't move the thumb, e.g. at the end of the track, isn't ours:
+                // it falls through, so focus can move on as it does from a SeekBar.
+                case KeyEvent.KEYCODE_DPAD_RIGHT:
+                    if(queueKeySteps(mKeyboardThumb, 1)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_DPAD_LEFT:
+                    if(queueKeySteps(mKeyboardThumb, -1)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_PAGE_UP:
+                    if(queueKeySteps(mKeyboardThumb, KEY_PAGE_STEPS)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_PAGE_DOWN:
+                    if(queueKeySteps(mKeyboardThumb, -KEY_PAGE_STEPS)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_MOVE_HOME:
+                    if(moveThumbByKey(mKeyboardThumb, mModel.getMin())){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_MOVE_END:
+                    if(moveThumbByKey(mKeyboardThumb, mModel.getMax())){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_TAB:
+                    // Past the first or last thumb, Tab leaves the slider as usual.
+                    int next = mKeyboardThumb + (event.isShiftPressed() ? -1 : 1);
+                    if(next >= 0 && next < mThumbCount){
+                        setKeyboardThumb(next);
+                        mAccessibilityHelper.requestKeyboardFocusForVirtualView(next);
+                        return true;
+                    }
+                    break;
+            }
+        }
+        return super.onKeyDown(keyCode, event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect){
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        mAccessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        if(mKeyboardThumb < mThumbCount){
+            beginThumbChange(mKeyboardThumb);
+            endThumbChange(mKeyboardThumb, true);
+            invalidateDirtyRegion();
+        }
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event){
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    private void setKeyboardThumb(int thumb){
+        if(thumb == mKeyboardThumb){
+            return;
+        }
+        mKeySteps.apply();
+        int previous = mKeyboardThumb;
+        mKeyboardThumb = thumb;
+        beginThumbChange(previous);
+        endThumbChange(previous, true);
+        beginThumbChange(thumb);
+        endThumbChange(thumb, true);
+        invalidateDirtyRegion();
+    }
+
+    // How far one arrow press moves a thumb, in value units.
+    private float getKeyStep(){
+        if(mModel.getStep() > 0f){
+            return mModel.getStep();
+        }
+        return Math.abs(mModel.getMax() - mModel.getMin()) * DEFAULT_KEY_STEP_FRACTION;
+    }
+
+    // Adds steps to the thumb's next frame move. Returns false, queuing nothing, if the thumb
+    // can't move that way at all.
+    private boolean queueKeySteps(int thumb, int steps){
+        return mKeySteps.queue(thumb, steps);
+    }
+
+    // Moves thumb by a frame's worth of presses. Returns whether the value changed.
+    private boolean applyKeySteps(int thumb, int steps){
+        if(mModel.getStep() == 0f && mModel.getValueScale() != SliderModel.ValueScale.LINEAR){
+            // Under a curved scale a fixed slice of the range is a crawl at one end and a
+            // jump at the other, so continuous keys step a fixed slice of the track instead.
+            SliderModel.Geometry track = mModel.getGeometry();
+            float delta = steps * (track.getEnd() - track.getStart()) * DEFAULT_KEY_STEP_FRACTION;
+            return moveThumbForKey(thumb, mModel.valueAt(mModel.getPosition(thumb) + delta));
+        }
+        return moveThumbForKey(thumb, mModel.getValue(thumb) + steps * getKeyStep());
+    }
+
+    // Moves thumb straight to value, e.g. for Home and End. Returns whether the value changed.
+    private boolean moveThumbByKey(int thumb, float value){
+        boolean changed = moveThumbForKey(thumb, value);
+        if(changed){
+            mKeySteps.changed(thumb);
+        }
+        return changed;
+    }
+
+    private boolean moveThumbForKey(int thumb, float value){
+        boolean changed = moveThumbTo(thumb, value, false, System.nanoTime());
+        finishThumbMoves(changed);
+        return changed;
+    }
+
+    // Exposes each thumb to accessibility services as its own SeekBar-like virtual view.
+    private class ThumbAccessibilityHelper extends ExploreByTouchHelper {
+        private final Rect mBounds = new Rect();
+
+        ThumbAccessibilityHelper(View host){
+            super(host);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y){
+            mHoverPoint.set(x, y);
+            int thumb = isOnTrack(mHoverPoint) ? getClosestThumb(mHoverPoint) : -1;
+            return thumb < 0 ? INVALID_ID : thumb;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds){
+            for(int i = 0; i < mThumbCount; i++){
+                virtualViewIds.add(i);
+            }
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int thumb, AccessibilityNodeInfoCompat node){
+            float low = Math.min(mModel.getMin(), mModel.getMax());
+            float high = Math.max(mModel.getMin(), mModel.getMax());
+            float value = mModel.getValue(thumb);
+
+            node.setClassName(SEEK_BAR_CLASS_NAME);
+            node.setContentDescription("Thumb " + (thumb + 1) + " of " + mThumbCount);
+            node.setRangeInfo(AccessibilityNodeInfoCompat.RangeInfoCompat.obtain(
+                    AccessibilityNodeInfoCompat.RangeInfoCompat.RANGE_TYPE_FLOAT, low, high, value));
+            node.setFocusable(true);
+            node.setScrollable(true);
+            if(value < high){
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+            }
+            if(value > low){
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+            }
+            node.addAction(AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_SET_PROGRESS);
+
+            float r = getThumbExtent(thumb);
+            mBounds.set((int)Math.floor(mThumbs.getX(thumb) - r), (int)Math.floor(mThumbs.getY(thumb) - r),
+                    (int)Math.ceil(mThumbs.getX(thumb) + r), (int)Math.ceil(mThumbs.getY(thumb) + r));
+            node.setBoundsInParent(mBounds);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int thumb, int action, Bundle arguments){
+            if(action == AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD){
+                return queueKeySteps(thumb, 1);
+            }
+            if(action == AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD){
+                return queueKeySteps(thumb, -1);
+            }
+            if(action == AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_SET_PROGRESS.getId()
+                    && arguments != null
+                    && arguments.containsKey(AccessibilityNodeInfoCompat.ACTION_ARGUMENT_PROGRESS_VALUE)){
+                moveThumbByKey(thumb,
+                        arguments.getFloat(AccessibilityNodeInfoCompat.ACTION_ARGUMENT_PROGRESS_VALUE));
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // The slider's geometry, value mapping and thumb state, usable without the view.
+    public SliderModel getModel(){
+        return mModel;
+    }
+
     public ArrayList<Float> getThumbValues(){
         ArrayList<Float> thumbValues = new ArrayList<>();
-        for(SliderThumb t : mThumbs){
-            Float value = t.getValue();
-            thumbValues.add(value);
+        for(int i = 0; i < mThumbCount; i++){
+            thumbValues.add(mModel.getValue(i));
         }
 
         return thumbValues;
     }
+
+    // Copies thumb values into out without boxing. Returns how many thumbs the slider has;
+    // if out is shorter than that, only the first out.length values are written.
+    public int getThumbValues(float[] out){
+        return mModel.getValues(out);
+    }
+
+    // Copies thumb values as ints into out. With whole-number min, max and step this skips
+    // float math entirely. Returns how many thumbs the slider has.
+    public int getThumbValues(int[] out){
+        return mModel.getIntValues(out);
+    }
+
+    // Like getThumbValues(float[]), but safe to call from any thread without blocking the UI
+    // thread, e.g. from an audio callback. Values are published once per update (a drag event,
+    // a push, a setThumbValues batch, an animation frame), so a read never sees one half done.
+    // See SliderModel.readValues.
+    public int readThumbValues(float[] out){
+        return mModel.readValues(out);
+    }
+
+    // Changes whenever a thumb value does; poll it to skip reads when nothing moved.
+    // Safe to call from any thread.
+    public int getValuesVersion(){
+        return mModel.getPublishedVersion();
+    }
 }
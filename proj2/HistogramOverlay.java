@@ -0,0 +1,169 @@
+package reimschussel.diyslider;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import java.util.Arrays;
+
+// Data-density bars drawn under a slider's track, so you can see where values cluster while
+// dragging. Values are counted into equal-width bins over min..max once; the data itself
+// isn't kept, and an append only bumps the bins its values land in. The bars are cached as
+// one Path in view coordinates, built from the bin counts rather than the data, and rebuilt
+// only when the counts or the track's shape change, never because a thumb moved.
+public class HistogramOverlay {
+    // Longest straight piece of a bar's edge along a curved track, in pixels.
+    private static final float SEGMENT_LENGTH = 8f;
+    private static final int MAX_SEGMENTS_PER_BIN = 16;
+
+    private final float mMin, mMax;
+    private int[] mCounts = new int[0];
+    private int mMaxCount;
+
+    private final Paint mPaint;
+    private float mBarHeight;
+    private final Path mPath = new Path();
+    private boolean mPathValid;
+
+    // One bar edge along the track, reused by every bar.
+    private final float[] mEdgeX = new float[MAX_SEGMENTS_PER_BIN + 1];
+    private final float[] mEdgeY = new float[MAX_SEGMENTS_PER_BIN + 1];
+
+    public HistogramOverlay(float min, float max, int color, float barHeight){
+        mMin = min;
+        mMax = max;
+        mBarHeight = barHeight;
+        mPaint = new Paint();
+        mPaint.setColor(color);
+        mPaint.setAntiAlias(true);
+        mPaint.setStyle(Paint.Style.FILL);
+    }
+
+    // Replaces the counts with data[0..count) sorted into bins. Values outside min..max, and
+    // NaNs, aren't on the slider and are skipped.
+    public void setData(float[] data, int count, int bins){
+        if(mCounts.length != bins){
+            mCounts = new int[Math.max(bins, 0)];
+        } else {
+            Arrays.fill(mCounts, 0);
+        }
+        mMaxCount = 0;
+        append(data, 0, count);
+    }
+
+    // Counts data[offset..offset+count) on top of what's there. Cost is the number of new
+    // values, whatever has been counted before.
+    public void append(float[] data, int offset, int count){
+        int bins = mCounts.length;
+        float range = mMax - mMin;
+        if(bins == 0 || range == 0f){
+            return;
+        }
+        for(int i = offset; i < offset + count; i++){
+            float fraction = (data[i] - mMin) / range;
+            if(!(fraction >= 0f && fraction <= 1f)){
+                continue;
+            }
+            int bin = Math.min((int)(fraction * bins), bins - 1);
+            int binCount = ++mCounts[bin];
+            if(binCount > mMaxCount){
+                mMaxCount = binCount;
+            }
+        }
+        mPathValid = false;
+    }
+
+    public void clear(){
+        setData(null, 0, 0);
+    }
+
+    public int getBinCount(){
+        return mCounts.length;
+    }
+
+    public int getCount(int bin){
+        return mCounts[bin];
+    }
+
+    public boolean isEmpty(){
+        return mMaxCount == 0;
+    }
+
+    // The tallest bin is barHeight pixels tall; the rest scale to it.
+    public void setBarHeight(float barHeight){
+        mBarHeight = barHeight;
+        mPathValid = false;
+    }
+
+    public void setColor(int color){
+        mPaint.setColor(color);
+    }
+
+    // Call when the track moves, resizes or changes shape, or the value scale changes.
+    public void invalidateShape(){
+        mPathValid = false;
+    }
+
+    public void draw(Canvas canvas, SliderModel model){
+        if(mMaxCount == 0){
+            return;
+        }
+        if(!mPathValid){
+            buildPath(model);
+        }
+        canvas.drawPath(mPath, mPaint);
+    }
+
+    // Each non-empty bin becomes one closed bar: its stretch of track, then the same points
+    // pushed out to the left of the direction values increase in (up for a line running left
+    // to right, towards the centre for a counter-clockwise arc). Bin edges go through
+    // positionOf, so bars follow the slider's value scale. rewind keeps the Path's storage,
+    // so a rebuild after the first doesn't allocate.
+    private void buildPath(SliderModel model){
+        mPath.rewind();
+        mPathValid = true;
+        SliderModel.Geometry track = model.getGeometry();
+        int bins = mCounts.length;
+        float range = mMax - mMin;
+        float from = model.positionOf(mMin);
+        for(int bin = 0; bin < bins; bin++){
+            float to = model.positionOf(mMin + range * (bin + 1) / bins);
+            int count = mCounts[bin];
+            if(count > 0){
+                addBar(track, from, to, mBarHeight * count / mMaxCount);
+            }
+            from = to;
+        }
+    }
+
+    private void addBar(SliderModel.Geometry track, float from, float to, float height){
+        float chord = (float)SliderModel.distanceBetweenPoints(track.getX(from), track.getY(from),
+                track.getX(to), track.getY(to));
+        int segments = Math.max(1, Math.min((int)Math.ceil(chord / SEGMENT_LENGTH), MAX_SEGMENTS_PER_BIN));
+        for(int i = 0; i <= segments; i++){
+            float position = from + (to - from) * i / segments;
+            mEdgeX[i] = track.getX(position);
+            mEdgeY[i] = track.getY(position);
+        }
+
+        mPath.moveTo(mEdgeX[0], mEdgeY[0]);
+        for(int i = 1; i <= segments; i++){
+            mPath.lineTo(mEdgeX[i], mEdgeY[i]);
+        }
+        for(int i = segments; i >= 0; i--){
+            // Direction from the neighbouring points, one-sided at the bar's ends.
+            int before = Math.max(i - 1, 0);
+            int after = Math.min(i + 1, segments);
+            float dx = mEdgeX[after] - mEdgeX[before];
+            float dy = mEdgeY[after] - mEdgeY[before];
+            float length = (float)Math.sqrt(dx*dx + dy*dy);
+            if(length == 0f){
+                dx = 1f;
+                dy = 0f;
+                length = 1f;
+            }
+            mPath.lineTo(mEdgeX[i] + height * dy / length, mEdgeY[i] - height * dx / length);
+        }
+        mPath.close();
+    }
+}
@@ -0,0 +1,121 @@
+package reimschussel.diyslider;
+
+// Key and accessibility presses for one thumb at a time. Presses only add up here; the next
+// display frame hands the net count to the host as a single move, so a held key (or a
+// service scrolling as fast as it can) updates the value and listeners at most once per
+// frame. Accessibility services hear about the changes at most once per announce interval,
+// plus a trailing announcement for the value they end on. The host posts the frames (a
+// Choreographer callback in the view) and does the moving, so nothing here needs Android.
+//
+// Like the rest of the slider this belongs to the UI thread.
+public class KeyStepQueue {
+    // Passed to Host.announce when more than one thumb changed since the last announcement.
+    public static final int ALL_THUMBS = -2;
+
+    public interface Host {
+        // Whether steps presses could move thumb at all, e.g. not while it's being dragged or
+        // when it's already at that end.
+        boolean canMove(int thumb, int steps);
+        // Moves thumb by steps presses in one go. Returns whether its value changed.
+        boolean applySteps(int thumb, int steps);
+        // Asks for one doFrame call on the next display frame.
+        void postFrame();
+        // Takes back a postFrame that hasn't run yet.
+        void removeFrame();
+        // Tells accessibility services thumb's value changed, or ALL_THUMBS.
+        void announce(int thumb);
+    }
+
+    private final Host mHost;
+    private final long mAnnounceIntervalNanos;
+    private int mPendingThumb = -1;
+    private int mPendingSteps;
+    // The thumb whose change hasn't been announced yet, ALL_THUMBS for several, -1 for none.
+    private int mDirtyThumb = -1;
+    private long mLastAnnounceNanos;
+    private boolean mFramePosted;
+
+    public KeyStepQueue(Host host, long announceIntervalNanos){
+        mHost = host;
+        mAnnounceIntervalNanos = announceIntervalNanos;
+    }
+
+    // Adds steps to the thumb's next frame move. Steps queued for another thumb are applied
+    // first. Returns false, queuing nothing, if the thumb can't move that way at all.
+    public boolean queue(int thumb, int steps){
+        if(thumb != mPendingThumb){
+            apply();
+            mPendingThumb = thumb;
+        }
+        if(mPendingSteps == 0 && !mHost.canMove(thumb, steps)){
+            return false;
+        }
+        mPendingSteps += steps;
+        postFrame();
+        return true;
+    }
+
+    // Net presses waiting for the next frame.
+    public int getPendingSteps(){
+        return mPendingSteps;
+    }
+
+    // Applies queued presses now, e.g. before the keys switch to another thumb.
+    public void apply(){
+        if(mPendingSteps == 0){
+            return;
+        }
+        int steps = mPendingSteps;
+        mPendingSteps = 0;
+        if(mHost.applySteps(mPendingThumb, steps)){
+            changed(mPendingThumb);
+        }
+    }
+
+    // Call after a key moved thumb directly, not through queue, so services hear of it too.
+    public void changed(int thumb){
+        if(mDirtyThumb == -1){
+            mDirtyThumb = thumb;
+        } else if(mDirtyThumb != thumb){
+            mDirtyThumb = ALL_THUMBS;
+        }
+        postFrame();
+    }
+
+    // The frame asked for by Host.postFrame.
+    public void doFrame(long frameTimeNanos){
+        // This frame can announce what it applies; only a deferred announcement needs another.
+        apply();
+        mFramePosted = false;
+        if(mDirtyThumb == -1){
+            return;
+        }
+
+        // Too soon after the last announcement; the latest value goes out on a later frame.
+        if(frameTimeNanos - mLastAnnounceNanos < mAnnounceIntervalNanos){
+            postFrame();
+            return;
+        }
+        mHost.announce(mDirtyThumb);
+        mDirtyThumb = -1;
+        mLastAnnounceNanos = frameTimeNanos;
+    }
+
+    // Applies queued presses now and drops the pending announcement, e.g. when detached.
+    public void cancel(){
+        apply();
+        if(mFramePosted){
+            mHost.removeFrame();
+            mFramePosted = false;
+        }
+        mDirtyThumb = -1;
+    }
+
+    private void postFrame(){
+        if(mFramePosted){
+            return;
+        }
+        mFramePosted = true;
+        mHost.postFrame();
+    }
+}
@@ -0,0 +1,1471 @@
+package reimschussel.diyslider;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Slider math and thumb state with no Android dependency, so it can be tested and benchmarked
+// on a plain JVM. DIYSlider owns drawing and touch handling and delegates the numbers here.
+// A thumb's position is its coordinate along the track (x for a line, polar angle in degrees
+// for an elliptical arc, arc length for a polyline); its value is that position mapped onto
+// min..max through the ValueScale, which is linear unless one is set.
+public class SliderModel {
+    // How thumbs interact. NONE lets them pass through each other. BLOCK and PUSH keep thumb i
+    // at or after thumb i-1 (plus the minimum separation): a blocked thumb stops at its
+    // neighbour, a pushing thumb shoves the neighbours along until the track end stops it.
+    public static final int ORDERING_NONE = 0;
+    public static final int ORDERING_BLOCK = 1;
+    public static final int ORDERING_PUSH = 2;
+
+    // Shape of the track in view coordinates.
+    public interface Geometry {
+        // Track coordinates of the two ends. Values map from start (min) to end (max).
+        float getStart();
+        float getEnd();
+
+        // Track position nearest the point (x, y), clamped to the track.
+        float project(float x, float y);
+
+        // View coordinates of a track position.
+        float getX(float position);
+        float getY(float position);
+
+        // Lower bound on the distance from the point (x, y) to any track point with a position
+        // from `from` to `to`. nearestThumb stops walking through the thumbs in that range once
+        // this passes its best match. Either end may be infinite, and on a track with a period
+        // the range may run past the track's ends by up to one period.
+        float getDistanceBound(float x, float y, float from, float to);
+
+        // Positions p and p + period are the same point, as with angles around an ellipse; 0
+        // for a track whose positions don't wrap. nearestThumb then searches the thumbs half
+        // a period either side of the touch, wrapping past the ends.
+        float getPeriod();
+    }
+
+    // Horizontal line at a fixed y. Positions are x coordinates.
+    public static class LinearGeometry implements Geometry {
+        private float mStart, mEnd, mY;
+
+        public LinearGeometry(float start, float end, float y){
+            setBounds(start, end, y);
+        }
+
+        public void setBounds(float start, float end, float y){
+            mStart = start;
+            mEnd = end;
+            mY = y;
+        }
+
+        @Override
+        public float getStart(){
+            return mStart;
+        }
+
+        @Override
+        public float getEnd(){
+            return mEnd;
+        }
+
+        @Override
+        public float project(float x, float y){
+            if(x > mEnd){
+                return mEnd;
+            } else if(x < mStart){
+                return mStart;
+            }
+            return x;
+        }
+
+        @Override
+        public float getX(float position){
+            return position;
+        }
+
+        @Override
+        public float getY(float position){
+            return mY;
+        }
+
+        // A point is never closer to a stretch of the line than its horizontal gap to that
+        // stretch, or its height above the line.
+        @Override
+        public float getDistanceBound(float x, float y, float from, float to){
+            float gap = x < from ? from - x : x > to ? x - to : 0f;
+            return Math.max(gap, Math.abs(y - mY));
+        }
+
+        @Override
+        public float getPeriod(){
+            return 0f;
+        }
+    }
+
+    // An arc of an ellipse centred on an origin, with radii (width, height). The arc starts at
+    // polar angle startAngle (degrees, counter-clockwise from the +x axis, y up) and sweeps
+    // sweepAngle degrees, negative for clockwise, up to a full turn. The default is the
+    // upper-right quarter, 0 to 90. Positions are polar angles that run from startAngle to
+    // startAngle + sweepAngle without wrapping, so an arc across 0/360 has positions past 360
+    // (or below 0). Points along the sweep are sampled into a table. The table is rebuilt only
+    // when the size, arc or error bound changes, and lookups interpolate between samples, so
+    // moving a thumb needs no trig.
+    public static class EllipseGeometry implements Geometry {
+        private static final int MIN_SAMPLES = 16;
+        private static final int MAX_SAMPLES = 8192;
+        private static final float FULL_TURN = 360f;
+        private static final float MIN_SWEEP = 1f;
+
+        private float mOriginX, mOriginY;
+        private int mWidth = -1, mHeight = -1;
+        private float mErrorBound;
+        private float mMaxError;
+
+        private float mStartAngle = 0f;
+        private float mSweepAngle = 90f;
+        // Lower end of the sweep and its size, so tables and lookups never care about direction.
+        private float mLow = 0f;
+        private float mSpan = 90f;
+
+        // Samples at mLow + i*mStep. Parametric angles are unwrapped so they run continuously
+        // alongside the polar angles, even across 0/360.
+        private float[] mX, mY, mEllipseAngle;
+        private int mSamples;
+        private float mStep;
+
+        // Polar angle of the last point getDistanceBound was asked about.
+        private float mBoundX = Float.NaN, mBoundY = Float.NaN;
+        private float mBoundAngle;
+
+        public EllipseGeometry(float originX, float originY, int width, int height, float errorBound){
+            mErrorBound = errorBound;
+            setBounds(originX, originY, width, height);
+        }
+
+        // Returns true if the size changed and the table was rebuilt.
+        public boolean setBounds(float originX, float originY, int width, int height){
+            mOriginX = originX;
+            mOriginY = originY;
+            if(mWidth == width && mHeight == height){
+                return false;
+            }
+
+            mWidth = width;
+            mHeight = height;
+            build();
+            return true;
+        }
+
+        // Sweeps are limited to one full turn either way, and at least MIN_SWEEP degrees.
+        // Returns true if the arc changed and the table was rebuilt.
+        public boolean setArc(float startAngle, float sweepAngle){
+            float magnitude = Math.max(MIN_SWEEP, Math.min(Math.abs(sweepAngle), FULL_TURN));
+            sweepAngle = sweepAngle < 0f ? -magnitude : magnitude;
+            if(startAngle == mStartAngle && sweepAngle == mSweepAngle){
+                return false;
+            }
+
+            mStartAngle = startAngle;
+            mSweepAngle = sweepAngle;
+            mLow = Math.min(startAngle, startAngle + sweepAngle);
+            mSpan = magnitude;
+            build();
+            return true;
+        }
+
+        public float getStartAngle(){
+            return mStartAngle;
+        }
+
+        public float getSweepAngle(){
+            return mSweepAngle;
+        }
+
+        public boolean isFullCircle(){
+            return mSpan == FULL_TURN;
+        }
+
+        // Maximum distance, in pixels, an interpolated point may land from the true ellipse.
+        public void setErrorBound(float pixels){
+            mErrorBound = pixels;
+            build();
+        }
+
+        // Worst distance (in pixels) between an interpolated point and the exact one.
+        public float getMaxError(){
+            return mMaxError;
+        }
+
+        public int getWidth(){
+            return mWidth;
+        }
+
+        public int getHeight(){
+            return mHeight;
+        }
+
+        @Override
+        public float getStart(){
+            return mStartAngle;
+        }
+
+        @Override
+        public float getEnd(){
+            return mStartAngle + mSweepAngle;
+        }
+
+        // Points in the gap of a partial arc go to the nearer end. On a full circle every
+        // direction is on the arc, and the seam at the start belongs to the low end.
+        @Override
+        public float project(float x, float y){
+            float delta_x = x - mOriginX;
+            float delta_y = mOriginY - y;
+            float angle = (float) Math.toDegrees(Math.atan2(delta_y, delta_x));
+
+            float offset = (angle - mLow) % FULL_TURN;
+            if(offset < 0f){
+                offset += FULL_TURN;
+            }
+            if(offset <= mSpan){
+                return mLow + offset;
+            }
+            return offset - mSpan < FULL_TURN - offset ? mLow + mSpan : mLow;
+        }
+
+        @Override
+        public float getX(float position){
+            return mOriginX + interpolate(mX, position);
+        }
+
+        @Override
+        public float getY(float position){
+            return mOriginY - interpolate(mY, position);
+        }
+
+        // Every arc point sits at least min(width, height) from the origin, so an arc point
+        // delta degrees round from the ray through (x, y) is at least that radius * sin(delta)
+        // from it, or the full radius past 90 degrees. delta is the shorter way round from the
+        // point's own angle to the range, so a point in a partial arc's gap, or across the
+        // seam of a full circle, is bounded as well as any other. The point's angle is kept
+        // from the last call, as nearestThumb asks about one point many times.
+        @Override
+        public float getDistanceBound(float x, float y, float from, float to){
+            float minRadius = Math.min(mWidth, mHeight) - mMaxError;
+            if(minRadius <= 0f || to - from >= FULL_TURN){
+                return 0f;
+            }
+            if(x != mBoundX || y != mBoundY){
+                mBoundX = x;
+                mBoundY = y;
+                mBoundAngle = (float)Math.toDegrees(Math.atan2(mOriginY - y, x - mOriginX));
+            }
+
+            float offset = (mBoundAngle - from) % FULL_TURN;
+            if(offset < 0f){
+                offset += FULL_TURN;
+            }
+            if(offset <= to - from){
+                return 0f;
+            }
+            float degrees = Math.min(Math.min(offset - (to - from), FULL_TURN - offset), 90f);
+            return minRadius * (float)Math.sin(Math.toRadians(degrees));
+        }
+
+        // Positions are polar angles, so they repeat every turn even on a partial arc.
+        @Override
+        public float getPeriod(){
+            return FULL_TURN;
+        }
+
+        // Parametric angle of the point at polar angle position, in degrees. This is the angle
+        // Canvas.drawArc expects for an oval with these radii.
+        public float getEllipseAngle(float position){
+            return interpolate(mEllipseAngle, position);
+        }
+
+        // Box around the arc and the origin, relative to the origin with y up, as
+        // {left, bottom, right, top}. The arc reaches furthest at its ends and wherever it
+        // crosses an axis.
+        public void getArcBounds(float[] out){
+            float left = 0f, bottom = 0f, right = 0f, top = 0f;
+            float end = mLow + mSpan;
+            for(float angle = (float)Math.ceil(mLow / 90f) * 90f; angle < end; angle += 90f){
+                left = Math.min(left, interpolate(mX, angle));
+                right = Math.max(right, interpolate(mX, angle));
+                bottom = Math.min(bottom, interpolate(mY, angle));
+                top = Math.max(top, interpolate(mY, angle));
+            }
+            left = Math.min(left, Math.min(mX[0], mX[mSamples]));
+            right = Math.max(right, Math.max(mX[0], mX[mSamples]));
+            bottom = Math.min(bottom, Math.min(mY[0], mY[mSamples]));
+            top = Math.max(top, Math.max(mY[0], mY[mSamples]));
+            out[0] = left;
+            out[1] = bottom;
+            out[2] = right;
+            out[3] = top;
+        }
+
+        private void build(){
+            // Keep doubling the sample count until interpolation stays inside the error bound.
+            // A wider sweep starts with proportionally more samples.
+            int samples = MIN_SAMPLES;
+            while(samples < MAX_SAMPLES && mSpan / samples > 90f / MIN_SAMPLES){
+                samples *= 2;
+            }
+            fill(samples);
+            mMaxError = measureMaxError();
+            while(mMaxError > mErrorBound && samples < MAX_SAMPLES){
+                samples *= 2;
+                fill(samples);
+                mMaxError = measureMaxError();
+            }
+        }
+
+        private float interpolate(float[] table, float angle){
+            float offset = angle - mLow;
+            float f;
+            if(offset <= 0f){
+                f = 0f;
+            } else if(offset >= mSpan){
+                // i+1 reads the duplicated end sample.
+                f = mSamples;
+            } else {
+                f = Math.min(offset / mStep, mSamples);
+            }
+
+            int i = (int)f;
+            return table[i] + (table[i+1] - table[i]) * (f - i);
+        }
+
+        private void fill(int samples){
+            mSamples = samples;
+            mStep = mSpan / samples;
+            mX = new float[samples + 2];
+            mY = new float[samples + 2];
+            mEllipseAngle = new float[samples + 2];
+            for(int i = 0; i <= samples; i++){
+                float angle = mLow + mStep * i;
+                double t = parametricAngle(angle);
+                mX[i] = (float)(mWidth * Math.cos(t));
+                mY[i] = (float)(mHeight * Math.sin(t));
+                mEllipseAngle[i] = (float)Math.toDegrees(t);
+            }
+            // Duplicate the end sample so a lookup at exactly the end can read i+1.
+            mX[samples + 1] = mX[samples];
+            mY[samples + 1] = mY[samples];
+            mEllipseAngle[samples + 1] = mEllipseAngle[samples];
+        }
+
+        private float measureMaxError(){
+            float maxError = 0f;
+            for(int i = 0; i < mSamples; i++){
+                float angle = mLow + mStep * (i + 0.5f);
+                double t = parametricAngle(angle);
+                double xDiff = interpolate(mX, angle) - mWidth * Math.cos(t);
+                double yDiff = interpolate(mY, angle) - mHeight * Math.sin(t);
+                maxError = Math.max(maxError, (float)Math.sqrt(xDiff*xDiff + yDiff*yDiff));
+            }
+            return maxError;
+        }
+
+        // The point at polar angle theta on an ellipse with radii (a, b) sits at parametric
+        // angle t = atan2(a*sin(theta), b*cos(theta)), i.e. (a*cos(t), b*sin(t)). t is always in
+        // theta's quadrant, so shifting it by whole turns to within half a turn of theta makes
+        // it continuous in theta.
+        private double parametricAngle(float degrees){
+            double theta = Math.toRadians(degrees);
+            double t = Math.atan2(mWidth * Math.sin(theta), mHeight * Math.cos(theta));
+            return t + 2 * Math.PI * Math.rint((theta - t) / (2 * Math.PI));
+        }
+    }
+
+    // A polyline through sampled points, e.g. an android.graphics.Path flattened by the view.
+    // Positions are arc length from the first point. Cumulative lengths make getX/getY a binary
+    // search. A tree of bounding boxes over the segments lets project() walk down to the
+    // nearest segment and skip any box farther away than the best match so far. That is
+    // O(log n) for a track that doesn't keep doubling back on itself, instead of testing
+    // every segment.
+    public static class PolylineGeometry implements Geometry {
+        private final float[] mX, mY, mLength;
+        private final int mSegments;
+
+        // Tree nodes in preorder. Node k covers segments mNodeFirst[k]..mNodeLast[k] inside
+        // its box. Its children are k+1 and mNodeRight[k], and leaves hold one segment.
+        private final int[] mNodeFirst, mNodeLast, mNodeRight;
+        private final float[] mBoxLeft, mBoxTop, mBoxRight, mBoxBottom;
+        private int mNodeCount;
+        // Pending nodes for tree walks, sized for the tree's depth.
+        private final int[] mStack;
+
+        // points holds x0, y0, x1, y1, ... in view coordinates, at least two points.
+        public PolylineGeometry(float[] points){
+            if(points.length < 4 || points.length % 2 != 0){
+                throw new IllegalArgumentException("A path track needs x, y pairs for at least two points, got "
+                        + points.length + " coordinates");
+            }
+            int count = points.length / 2;
+            mX = new float[count];
+            mY = new float[count];
+            mLength = new float[count];
+            for(int i = 0; i < count; i++){
+                mX[i] = points[2*i];
+                mY[i] = points[2*i + 1];
+                if(i > 0){
+                    mLength[i] = mLength[i-1] + (float)distanceBetweenPoints(mX[i-1], mY[i-1], mX[i], mY[i]);
+                }
+            }
+            mSegments = count - 1;
+
+            int nodes = 2*mSegments - 1;
+            mNodeFirst = new int[nodes];
+            mNodeLast = new int[nodes];
+            mNodeRight = new int[nodes];
+            mBoxLeft = new float[nodes];
+            mBoxTop = new float[nodes];
+            mBoxRight = new float[nodes];
+            mBoxBottom = new float[nodes];
+            int depth = build(0, mSegments - 1);
+            mStack = new int[depth + 2];
+        }
+
+        @Override
+        public float getStart(){
+            return 0f;
+        }
+
+        @Override
+        public float getEnd(){
+            return mLength[mLength.length - 1];
+        }
+
+        @Override
+        public float project(float x, float y){
+            float best = Float.MAX_VALUE;
+            float bestPosition = 0f;
+            int top = 0;
+            mStack[top++] = 0;
+            while(top > 0){
+                int node = mStack[--top];
+                if(boxDistanceSquared(node, x, y) >= best){
+                    continue;
+                }
+
+                if(mNodeFirst[node] == mNodeLast[node]){
+                    int i = mNodeFirst[node];
+                    float dx = mX[i+1] - mX[i];
+                    float dy = mY[i+1] - mY[i];
+                    float lengthSquared = dx*dx + dy*dy;
+                    float t = lengthSquared == 0f ? 0f : ((x - mX[i])*dx + (y - mY[i])*dy) / lengthSquared;
+                    t = Math.max(0f, Math.min(t, 1f));
+                    float ex = mX[i] + t*dx - x;
+                    float ey = mY[i] + t*dy - y;
+                    float distance = ex*ex + ey*ey;
+                    if(distance < best){
+                        best = distance;
+                        bestPosition = mLength[i] + t*(mLength[i+1] - mLength[i]);
+                    }
+                    continue;
+                }
+
+                // Push the farther child first so the nearer one is searched first and
+                // tightens the bound that prunes the other.
+                int left = node + 1;
+                int right = mNodeRight[node];
+                if(boxDistanceSquared(left, x, y) <= boxDistanceSquared(right, x, y)){
+                    mStack[top++] = right;
+                    mStack[top++] = left;
+                } else {
+                    mStack[top++] = left;
+                    mStack[top++] = right;
+                }
+            }
+            return bestPosition;
+        }
+
+        @Override
+        public float getX(float position){
+            int i = segmentAt(position);
+            return mX[i] + (mX[i+1] - mX[i]) * fractionAt(i, position);
+        }
+
+        @Override
+        public float getY(float position){
+            int i = segmentAt(position);
+            return mY[i] + (mY[i+1] - mY[i]) * fractionAt(i, position);
+        }
+
+        // A path can come back around arbitrarily close to itself, so distance along it rules
+        // nothing out; the tree's boxes do. The stretch from..to is covered by a few whole
+        // subtrees, the same ones getBounds uses, and no point of it is nearer (x, y) than the
+        // nearest of their boxes.
+        @Override
+        public float getDistanceBound(float x, float y, float from, float to){
+            int first = segmentAt(from);
+            int last = segmentAt(to);
+            float best = Float.MAX_VALUE;
+            int top = 0;
+            mStack[top++] = 0;
+            while(top > 0){
+                int node = mStack[--top];
+                if(mNodeLast[node] < first || mNodeFirst[node] > last){
+                    continue;
+                }
+                // Children sit inside their parent's box, so a box no nearer than the best
+                // so far has nothing nearer inside it.
+                float distance = boxDistanceSquared(node, x, y);
+                if(distance >= best){
+                    continue;
+                }
+                if(mNodeFirst[node] >= first && mNodeLast[node] <= last){
+                    best = distance;
+                    continue;
+                }
+                mStack[top++] = mNodeRight[node];
+                mStack[top++] = node + 1;
+            }
+            return (float)Math.sqrt(best);
+        }
+
+        @Override
+        public float getPeriod(){
+            return 0f;
+        }
+
+        // Box around the stretch of track between positions from and to, as
+        // {left, top, right, bottom}. Whole segments are covered, so it may reach a little past
+        // either end.
+        public void getBounds(float from, float to, float[] out){
+            int first = segmentAt(Math.min(from, to));
+            int last = segmentAt(Math.max(from, to));
+            out[0] = Float.MAX_VALUE;
+            out[1] = Float.MAX_VALUE;
+            out[2] = -Float.MAX_VALUE;
+            out[3] = -Float.MAX_VALUE;
+            int top = 0;
+            mStack[top++] = 0;
+            while(top > 0){
+                int node = mStack[--top];
+                if(mNodeLast[node] < first || mNodeFirst[node] > last){
+                    continue;
+                }
+                if(mNodeFirst[node] >= first && mNodeLast[node] <= last){
+                    out[0] = Math.min(out[0], mBoxLeft[node]);
+                    out[1] = Math.min(out[1], mBoxTop[node]);
+                    out[2] = Math.max(out[2], mBoxRight[node]);
+                    out[3] = Math.max(out[3], mBoxBottom[node]);
+                    continue;
+                }
+                mStack[top++] = mNodeRight[node];
+                mStack[top++] = node + 1;
+            }
+        }
+
+        // Builds the subtree for segments first..last at the next free node and returns its
+        // depth.
+        private int build(int first, int last){
+            int node = mNodeCount++;
+            mNodeFirst[node] = first;
+            mNodeLast[node] = last;
+            if(first == last){
+                mBoxLeft[node] = Math.min(mX[first], mX[first+1]);
+                mBoxTop[node] = Math.min(mY[first], mY[first+1]);
+                mBoxRight[node] = Math.max(mX[first], mX[first+1]);
+                mBoxBottom[node] = Math.max(mY[first], mY[first+1]);
+                return 1;
+            }
+
+            int middle = (first + last) >>> 1;
+            int depth = build(first, middle);
+            int right = mNodeCount;
+            mNodeRight[node] = right;
+            depth = Math.max(depth, build(middle + 1, last));
+            int left = node + 1;
+            mBoxLeft[node] = Math.min(mBoxLeft[left], mBoxLeft[right]);
+            mBoxTop[node] = Math.min(mBoxTop[left], mBoxTop[right]);
+            mBoxRight[node] = Math.max(mBoxRight[left], mBoxRight[right]);
+            mBoxBottom[node] = Math.max(mBoxBottom[left], mBoxBottom[right]);
+            return depth + 1;
+        }
+
+        private float boxDistanceSquared(int node, float x, float y){
+            float dx = Math.max(Math.max(mBoxLeft[node] - x, x - mBoxRight[node]), 0f);
+            float dy = Math.max(Math.max(mBoxTop[node] - y, y - mBoxBottom[node]), 0f);
+            return dx*dx + dy*dy;
+        }
+
+        // Segment containing position, clamped to the track.
+        private int segmentAt(float position){
+            int lo = 0;
+            int hi = mSegments - 1;
+            while(lo < hi){
+                int mid = (lo + hi + 1) >>> 1;
+                if(mLength[mid] <= position){
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+
+        private float fractionAt(int segment, float position){
+            float length = mLength[segment+1] - mLength[segment];
+            if(length == 0f){
+                return 0f;
+            }
+            return Math.max(0f, Math.min((position - mLength[segment]) / length, 1f));
+        }
+    }
+
+    // How values are spread along the track, as fractions: fraction t of the way from the
+    // track start to its end shows fraction u of the way from min to max. Implementations must
+    // be increasing with 0 -> 0 and 1 -> 1, and the two methods must invert each other.
+    // Touch moves only call toValueFraction, so that is the direction to keep cheap.
+    public interface ValueScale {
+        ValueScale LINEAR = new LinearScale();
+
+        float toValueFraction(float trackFraction);
+        float toTrackFraction(float valueFraction);
+    }
+
+    public static class LinearScale implements ValueScale {
+        @Override
+        public float toValueFraction(float trackFraction){
+            return Math.max(0f, Math.min(trackFraction, 1f));
+        }
+
+        @Override
+        public float toTrackFraction(float valueFraction){
+            return Math.max(0f, Math.min(valueFraction, 1f));
+        }
+    }
+
+    // Values grow geometrically along the track: u = (ratio^t - 1) / (ratio - 1). For a range
+    // min..max with min > 0, a ratio of max/min makes the track a true log axis (1000 for
+    // 20 Hz to 20 kHz). The curve is sampled once into a table, so a move is a lookup and a
+    // lerp instead of Math.pow; the inverse binary searches the same table, which makes it
+    // the exact inverse of what touches see. The curve bends by at most ln(ratio)^2, so
+    // with TABLE_SIZE segments the interpolation error stays below 3e-5 of the range for
+    // ratios up to a million. A ratio of 1, or one that isn't positive, gives a straight line.
+    public static class LogScale implements ValueScale {
+        private static final int TABLE_SIZE = 1024;
+
+        private final float mRatio;
+        private final float[] mTable = new float[TABLE_SIZE + 1];
+
+        public LogScale(float ratio){
+            mRatio = ratio;
+            double r = ratio;
+            boolean curved = r > 0.0 && r != 1.0 && !Double.isInfinite(r);
+            for(int i = 0; i <= TABLE_SIZE; i++){
+                double t = (double)i / TABLE_SIZE;
+                mTable[i] = (float)(curved ? (Math.pow(r, t) - 1.0) / (r - 1.0) : t);
+            }
+            mTable[0] = 0f;
+            mTable[TABLE_SIZE] = 1f;
+        }
+
+        public float getRatio(){
+            return mRatio;
+        }
+
+        @Override
+        public float toValueFraction(float trackFraction){
+            if(!(trackFraction > 0f)){
+                return 0f;
+            }
+            float f = trackFraction * TABLE_SIZE;
+            int i = (int)f;
+            if(i >= TABLE_SIZE){
+                return 1f;
+            }
+            return mTable[i] + (mTable[i+1] - mTable[i]) * (f - i);
+        }
+
+        @Override
+        public float toTrackFraction(float valueFraction){
+            if(!(valueFraction > 0f)){
+                return 0f;
+            }
+            if(valueFraction >= 1f){
+                return 1f;
+            }
+            // Last entry at or below the value; the table starts at 0, so there always is one.
+            int lo = 0, hi = TABLE_SIZE;
+            while(hi - lo > 1){
+                int mid = (lo + hi) >>> 1;
+                if(mTable[mid] <= valueFraction){
+                    lo = mid;
+                } else {
+                    hi = mid;
+                }
+            }
+            float width = mTable[lo+1] - mTable[lo];
+            float f = width > 0f ? (valueFraction - mTable[lo]) / width : 0f;
+            return (lo + f) / TABLE_SIZE;
+        }
+    }
+
+    // The mirror image of LogScale: values rise quickly near the start and flatten towards the
+    // end, u = log(1 + t*(ratio - 1)) / log(ratio). It uses LogScale's table the other way
+    // round, because sampling this curve directly would need a much finer table near t = 0,
+    // where it is steepest.
+    public static class ExpScale implements ValueScale {
+        private final LogScale mInverse;
+
+        public ExpScale(float ratio){
+            mInverse = new LogScale(ratio);
+        }
+
+        public float getRatio(){
+            return mInverse.getRatio();
+        }
+
+        @Override
+        public float toValueFraction(float trackFraction){
+            return mInverse.toTrackFraction(trackFraction);
+        }
+
+        @Override
+        public float toTrackFraction(float valueFraction){
+            return mInverse.toValueFraction(valueFraction);
+        }
+    }
+
+    // Straight segments through breakpoints (trackFractions[i], valueFractions[i]), e.g. half
+    // the track for the first tenth of the range. Both arrays are copied and must have the
+    // same length, at least two points, and never decrease from 0 to 1; a flat segment maps
+    // back to its start. Lookups binary search the breakpoints, which for the few a slider
+    // needs is a handful of compares.
+    public static class PiecewiseScale implements ValueScale {
+        private final float[] mTrack;
+        private final float[] mValue;
+
+        public PiecewiseScale(float[] trackFractions, float[] valueFractions){
+            if(trackFractions.length != valueFractions.length){
+                throw new IllegalArgumentException("Breakpoint arrays differ in length: "
+                        + trackFractions.length + " track fractions, " + valueFractions.length + " value fractions");
+            }
+            mTrack = trackFractions.clone();
+            mValue = valueFractions.clone();
+            checkBreakpoints(mTrack, "track");
+            checkBreakpoints(mValue, "value");
+        }
+
+        private static void checkBreakpoints(float[] fractions, String name){
+            int last = fractions.length - 1;
+            if(last < 1 || fractions[0] != 0f || fractions[last] != 1f){
+                throw new IllegalArgumentException("The " + name + " fractions must run from 0 to 1 in at least two points, got "
+                        + Arrays.toString(fractions));
+            }
+            for(int i = 1; i <= last; i++){
+                // Written this way round so a NaN fails too.
+                if(!(fractions[i] >= fractions[i-1])){
+                    throw new IllegalArgumentException("The " + name + " fractions decrease at index " + i + ": "
+                            + Arrays.toString(fractions));
+                }
+            }
+        }
+
+        @Override
+        public float toValueFraction(float trackFraction){
+            return interpolate(mTrack, mValue, trackFraction);
+        }
+
+        @Override
+        public float toTrackFraction(float valueFraction){
+            return interpolate(mValue, mTrack, valueFraction);
+        }
+
+        private static float interpolate(float[] from, float[] to, float x){
+            int last = from.length - 1;
+            if(!(x > from[0])){
+                return to[0];
+            }
+            if(x >= from[last]){
+                return to[last];
+            }
+            int lo = 0, hi = last;
+            while(hi - lo > 1){
+                int mid = (lo + hi) >>> 1;
+                if(from[mid] <= x){
+                    lo = mid;
+                } else {
+                    hi = mid;
+                }
+            }
+            float width = from[lo+1] - from[lo];
+            float f = width > 0f ? (x - from[lo]) / width : 0f;
+            return to[lo] + (to[lo+1] - to[lo]) * f;
+        }
+    }
+
+    private Geometry mGeometry;
+    private float mMin, mMax;
+    private ValueScale mScale = ValueScale.LINEAR;
+    private final float[] mPositions;
+    private final float[] mValues;
+
+    // Thumb indices sorted by position, and each thumb's rank in that order. A thumb that
+    // moves is shifted past whichever neighbours it crossed, which is O(1) for a normal drag.
+    private final int[] mOrder;
+    private final int[] mRank;
+
+    // Optional value step. Values snap to min + k*step (the last step snaps to max, even if
+    // the range isn't a whole number of steps) and each thumb keeps its k as an int, so only
+    // moving to a different step counts as a value change. Positions snap too, so a thumb is
+    // drawn exactly where its value says. 0 means continuous values.
+    private float mStep;
+    private int mStepCount;
+    private int[] mStepIndices;
+    private boolean mIntegerSteps;
+
+    // Values published for other threads, guarded by a seqlock. The model itself belongs to
+    // one thread (the UI thread); every value change is also written here as float bits, with
+    // mSequence odd while the write is in progress. Readers copy the values and retry until
+    // they see the same even sequence before and after, so neither side ever blocks. One
+    // update, however many thumbs it moves (a push, a whole batch between beginUpdate and
+    // endUpdate), is one write, so readers never see it half done.
+    private final AtomicIntegerArray mPublished;
+    private volatile int mSequence;
+    private int mUpdateDepth;
+    private boolean mWriting;
+
+    // With ordering on, thumb indices are also position order, so a move only has to look at
+    // thumb-1 and thumb+1. The separation is kept in value units and converted to track units
+    // per move, so it survives the track being resized.
+    private int mOrdering = ORDERING_NONE;
+    private float mMinSeparation;
+    private int mMovedFirst, mMovedLast;
+
+    // Thumbs start at the beginning of the track.
+    public SliderModel(Geometry geometry, int thumbCount, float min, float max){
+        mGeometry = geometry;
+        mMin = min;
+        mMax = max;
+        mPositions = new float[thumbCount];
+        mValues = new float[thumbCount];
+        mOrder = new int[thumbCount];
+        mRank = new int[thumbCount];
+        mPublished = new AtomicIntegerArray(thumbCount);
+        for(int i = 0; i < thumbCount; i++){
+            mOrder[i] = i;
+            mRank[i] = i;
+            mPositions[i] = geometry.getStart();
+        }
+        for(int i = 0; i < thumbCount; i++){
+            setPosition(i, geometry.getStart());
+        }
+    }
+
+    public Geometry getGeometry(){
+        return mGeometry;
+    }
+
+    // Swaps the track shape. Every thumb keeps its value; see remapPositions.
+    public void setGeometry(Geometry geometry){
+        mGeometry = geometry;
+        remapPositions();
+    }
+
+    public ValueScale getValueScale(){
+        return mScale;
+    }
+
+    // Swaps how values are spread along the track; null means linear. Every thumb keeps its
+    // value. The ordering separation stays the same fraction of the track rather than of the
+    // range, so under a curved scale its size in value units depends on where the thumbs are.
+    public void setValueScale(ValueScale scale){
+        mScale = scale != null ? scale : ValueScale.LINEAR;
+        remapPositions();
+    }
+
+    public float getMin(){
+        return mMin;
+    }
+
+    public float getMax(){
+        return mMax;
+    }
+
+    public int getThumbCount(){
+        return mPositions.length;
+    }
+
+    public float getPosition(int thumb){
+        return mPositions[thumb];
+    }
+
+    public float getValue(int thumb){
+        return mValues[thumb];
+    }
+
+    // Moves thumb to position, clamped to the track (and to its neighbours with ordering on),
+    // and recomputes its value. Returns whether a value changed; with a step set, whether a
+    // thumb landed on a different step. Pushed neighbours count too, see getMovedFirst.
+    public boolean setPosition(int thumb, float position){
+        beginUpdate();
+        boolean changed = placeThumb(thumb, clamp(position));
+        endUpdate();
+        return changed;
+    }
+
+    private boolean placeThumb(int thumb, float position){
+        mMovedFirst = thumb;
+        mMovedLast = thumb;
+        float separation = separation();
+        float low = lowestPosition(thumb, separation);
+        float high = highestPosition(thumb, separation);
+        position = Math.max(low, Math.min(position, high));
+        if(mOrdering == ORDERING_PUSH){
+            return pushPosition(thumb, position, low, high, separation);
+        }
+        return movePosition(thumb, position, low, high);
+    }
+
+    // Whether setPosition(thumb, position) would change the thumb's value (or step), without
+    // moving anything. Only the thumb itself counts, not neighbours it would push. Lets a
+    // caller tell a move that is stuck, e.g. against the end of the track, from a real one.
+    public boolean wouldChange(int thumb, float position){
+        float separation = separation();
+        float low = lowestPosition(thumb, separation);
+        float high = highestPosition(thumb, separation);
+        position = Math.max(low, Math.min(clamp(position), high));
+        if(mStepIndices != null){
+            return stepWithin(position, low, high) != mStepIndices[thumb];
+        }
+        return valueAt(position) != mValues[thumb];
+    }
+
+    // Where setPosition(thumb, position) would put thumb before any step snapping: position
+    // clamped to the track and, with ordering on, to the room its neighbours leave it. A
+    // caller can tell from this whether a move would run into a neighbour.
+    public float reachablePosition(int thumb, float position){
+        float separation = separation();
+        float low = lowestPosition(thumb, separation);
+        float high = highestPosition(thumb, separation);
+        return Math.max(low, Math.min(clamp(position), high));
+    }
+
+    // The range a move can take thumb to: the track, less the room its neighbours need. Under
+    // ORDERING_BLOCK that's up to the neighbours themselves; under ORDERING_PUSH, enough that
+    // every thumb it pushes still fits.
+    private float lowestPosition(int thumb, float separation){
+        if(mOrdering == ORDERING_BLOCK && thumb > 0){
+            return mPositions[thumb-1] + separation;
+        } else if(mOrdering == ORDERING_PUSH){
+            return trackLow() + thumb * separation;
+        }
+        return trackLow();
+    }
+
+    private float highestPosition(int thumb, float separation){
+        int last = mPositions.length - 1;
+        if(mOrdering == ORDERING_BLOCK && thumb < last){
+            return mPositions[thumb+1] - separation;
+        } else if(mOrdering == ORDERING_PUSH){
+            return trackHigh() - (last - thumb) * separation;
+        }
+        return trackHigh();
+    }
+
+    // Moves thumb to wherever value sits on the track. Values outside min..max are clamped.
+    public boolean setValue(int thumb, float value){
+        return setPosition(thumb, positionOf(value));
+    }
+
+    // Turns thumb ordering on or off. minSeparation is the smallest gap between neighbouring
+    // values, shrunk if the thumbs couldn't all fit otherwise. Turning ordering on sorts the
+    // current positions onto the thumbs in index order and spreads out any that are too close.
+    public void setOrdering(int ordering, float minSeparation){
+        mOrdering = ordering;
+        mMinSeparation = Math.abs(minSeparation);
+        if(mOrdering == ORDERING_NONE || mPositions.length == 0){
+            return;
+        }
+        beginUpdate();
+
+        float[] sorted = new float[mPositions.length];
+        for(int r = 0; r < mOrder.length; r++){
+            sorted[r] = mPositions[mOrder[r]];
+        }
+        float separation = separation();
+        float low = trackLow();
+        float high = trackHigh();
+        sorted[0] = Math.max(sorted[0], low);
+        for(int i = 1; i < sorted.length; i++){
+            sorted[i] = Math.max(sorted[i], sorted[i-1] + separation);
+        }
+        sorted[sorted.length - 1] = Math.min(sorted[sorted.length - 1], high);
+        for(int i = sorted.length - 2; i >= 0; i--){
+            sorted[i] = Math.min(sorted[i], sorted[i+1] - separation);
+        }
+
+        // Thumbs are placed low to high, each one on a step clear of the thumb below it.
+        for(int i = 0; i < sorted.length; i++){
+            movePosition(i, sorted[i], i > 0 ? mPositions[i-1] + separation : low, high);
+        }
+        mMovedFirst = 0;
+        mMovedLast = sorted.length - 1;
+        if(mStepIndices != null){
+            settleSteps(separation);
+        }
+        endUpdate();
+    }
+
+    public int getOrdering(){
+        return mOrdering;
+    }
+
+    // Call after the geometry's start or end moved. Each thumb keeps its value and goes to
+    // wherever that value now sits, without clamping or ordering getting in the way.
+    public void remapPositions(){
+        for(int i = 0; i < mPositions.length; i++){
+            mPositions[i] = positionOf(mValues[i]);
+        }
+
+        // A monotonic remap keeps the order or reverses it. Insertion sort is linear in the first
+        // case, and this only runs when the track changes shape.
+        for(int r = 1; r < mOrder.length; r++){
+            int thumb = mOrder[r];
+            float position = mPositions[thumb];
+            int k = r;
+            while(k > 0 && mPositions[mOrder[k-1]] > position){
+                mOrder[k] = mOrder[k-1];
+                k--;
+            }
+            mOrder[k] = thumb;
+        }
+        for(int r = 0; r < mOrder.length; r++){
+            mRank[mOrder[r]] = r;
+        }
+        mMovedFirst = 0;
+        mMovedLast = mPositions.length - 1;
+    }
+
+    // Range of thumbs the last setPosition or setValue moved, inclusive. More than one only
+    // when ordering is ORDERING_PUSH and neighbours were shoved.
+    public int getMovedFirst(){
+        return mMovedFirst;
+    }
+
+    public int getMovedLast(){
+        return mMovedLast;
+    }
+
+    // Minimum gap in track units.
+    private float separation(){
+        float range = mMax - mMin;
+        float span = Math.abs(mGeometry.getEnd() - mGeometry.getStart());
+        if(range == 0f || mPositions.length < 2){
+            return 0f;
+        }
+        float separation = Math.abs(mMinSeparation * span / range);
+        return Math.min(separation, span / (mPositions.length - 1));
+    }
+
+    // Moves thumb, then walks outward only as far as neighbours are actually in the way. The
+    // caller has limited position to low..high, so every thumb it pushes still fits.
+    private boolean pushPosition(int thumb, float position, float low, float high, float separation){
+        int last = mPositions.length - 1;
+        boolean changed = movePosition(thumb, position, low, high);
+        for(int i = thumb + 1; i <= last && mPositions[i] < mPositions[i-1] + separation; i++){
+            float pushed = mPositions[i-1] + separation;
+            changed |= movePosition(i, pushed, pushed, trackHigh());
+            mMovedLast = i;
+        }
+        for(int i = thumb - 1; i >= 0 && mPositions[i] > mPositions[i+1] - separation; i--){
+            float pushed = mPositions[i+1] - separation;
+            changed |= movePosition(i, pushed, trackLow(), pushed);
+            mMovedFirst = i;
+        }
+        if(mStepIndices != null){
+            changed |= settleSteps(separation);
+        }
+        return changed;
+    }
+
+    // A step can be wider than the separation, so thumbs pushed against an end of the track
+    // may find no step left for them there. They pack back from that end instead: first from
+    // the top of the moved range downwards, then from its bottom upwards. Either walk stops at
+    // the first pair of thumbs that are already far enough apart.
+    private boolean settleSteps(float separation){
+        boolean changed = false;
+        for(int i = mMovedLast - 1; i >= 0 && mPositions[i] > mPositions[i+1] - separation; i--){
+            float pushed = mPositions[i+1] - separation;
+            changed |= movePosition(i, pushed, trackLow(), pushed);
+            mMovedFirst = Math.min(mMovedFirst, i);
+        }
+        for(int i = mMovedFirst + 1; i < mPositions.length && mPositions[i] < mPositions[i-1] + separation; i++){
+            float pushed = mPositions[i-1] + separation;
+            changed |= movePosition(i, pushed, pushed, trackHigh());
+            mMovedLast = Math.max(mMovedLast, i);
+        }
+        return changed;
+    }
+
+    // Puts thumb at position, which the caller has already clamped and kept clear of the
+    // neighbours. With a step set, the thumb goes to the step nearest position that is still
+    // inside low..high, the range the caller allowed, so snapping can't undo the separation.
+    private boolean movePosition(int thumb, float position, float low, float high){
+        float value;
+        boolean changed;
+        if(mStepIndices != null){
+            int step = stepWithin(position, low, high);
+            value = stepValue(step);
+            position = clamp(positionOf(value));
+            changed = step != mStepIndices[thumb];
+            mStepIndices[thumb] = step;
+        } else {
+            value = valueAt(position);
+            changed = value != mValues[thumb];
+        }
+        mPositions[thumb] = position;
+        reorder(thumb);
+
+        // A new step size can change the value without changing the step index.
+        if(value != mValues[thumb]){
+            mValues[thumb] = value;
+            publish(thumb, value);
+        }
+        return changed;
+    }
+
+    // Snaps values to multiples of step from min. 0 (or a negative step) turns snapping off.
+    // Steps are "integer" when min, max and step are all whole numbers; getIntValue then
+    // works purely in ints.
+    public void setStep(float step){
+        float range = Math.abs(mMax - mMin);
+        if(step <= 0f || range == 0f){
+            mStep = 0f;
+            mStepCount = 0;
+            mStepIndices = null;
+            mIntegerSteps = false;
+        } else {
+            mStep = step;
+            // Tolerate float error so an exact multiple doesn't grow a sliver of a last step.
+            mStepCount = (int)Math.ceil(range / step - 1e-4f);
+            mStepIndices = new int[mPositions.length];
+            mIntegerSteps = mMin == (int)mMin && mMax == (int)mMax && step == (int)step;
+        }
+
+        // With ordering on, thumbs are placed together so no two land on one step.
+        if(mOrdering != ORDERING_NONE){
+            setOrdering(mOrdering, mMinSeparation);
+            return;
+        }
+        beginUpdate();
+        for(int i = 0; i < mPositions.length; i++){
+            setPosition(i, mPositions[i]);
+        }
+        endUpdate();
+    }
+
+    public float getStep(){
+        return mStep;
+    }
+
+    public boolean hasIntegerSteps(){
+        return mIntegerSteps;
+    }
+
+    // Which step thumb sits on (0 at min, getStepCount() at max), or -1 without a step.
+    public int getStepIndex(int thumb){
+        return mStepIndices == null ? -1 : mStepIndices[thumb];
+    }
+
+    public int getStepCount(){
+        return mStepCount;
+    }
+
+    // Thumb value as an int. With integer steps this never touches floats; otherwise it's
+    // the rounded value.
+    public int getIntValue(int thumb){
+        if(!mIntegerSteps){
+            return Math.round(mValues[thumb]);
+        }
+
+        int step = mStepIndices[thumb];
+        if(step >= mStepCount){
+            return (int)mMax;
+        }
+        int direction = mMax >= mMin ? 1 : -1;
+        return (int)mMin + direction * step * (int)mStep;
+    }
+
+    // Copies thumb values as ints into out. Returns the thumb count; if out is shorter than
+    // that, only the first out.length values are written.
+    public int getIntValues(int[] out){
+        int count = Math.min(out.length, mValues.length);
+        for(int i = 0; i < count; i++){
+            out[i] = getIntValue(i);
+        }
+        return mValues.length;
+    }
+
+    // Copies thumb values into out. Returns the thumb count; if out is shorter than that,
+    // only the first out.length values are written.
+    public int getValues(float[] out){
+        int count = Math.min(out.length, mValues.length);
+        System.arraycopy(mValues, 0, out, 0, count);
+        return mValues.length;
+    }
+
+    // Copies the latest published values into out without locking. Safe to call from any
+    // thread; the values are always a set the model actually held at some point. Returns the
+    // thumb count; if out is shorter than that, only the first out.length values are written.
+    public int readValues(float[] out){
+        int count = Math.min(out.length, mPublished.length());
+        int sequence;
+        do {
+            sequence = mSequence;
+            for(int i = 0; i < count; i++){
+                out[i] = Float.intBitsToFloat(mPublished.get(i));
+            }
+        } while((sequence & 1) != 0 || sequence != mSequence);
+        return mPublished.length();
+    }
+
+    // Latest published value of one thumb. Safe to call from any thread.
+    public float readValue(int thumb){
+        return Float.intBitsToFloat(mPublished.get(thumb));
+    }
+
+    // Groups every move until the matching endUpdate into one published update, so readValues
+    // sees all of them or none. Calls nest; only the outermost endUpdate publishes. The UI
+    // thread must not call readValues, or anything that does, while an update is open: it
+    // would wait on its own write.
+    public void beginUpdate(){
+        mUpdateDepth++;
+    }
+
+    public void endUpdate(){
+        if(--mUpdateDepth == 0 && mWriting){
+            mWriting = false;
+            mSequence++;
+        }
+    }
+
+    // Goes up each time an update is published, so other threads can poll it and only copy
+    // values when something changed. Safe to call from any thread.
+    public int getPublishedVersion(){
+        return mSequence >>> 1;
+    }
+
+    // Thumb nearest the view point (x, y) that is closer than maxDistance, or -1. Binary
+    // searches the sorted order and walks outward only until the geometry's distance bound
+    // for the rest of the walk passes the best match, so it stays cheap with hundreds of
+    // thumbs. On a track with a period, like a full circle, the two walks wrap past the ends
+    // and meet half a period from the touch, so thumbs either side of the seam are near.
+    public int nearestThumb(float x, float y, double maxDistance){
+        int count = mOrder.length;
+        float touch = mGeometry.project(x, y);
+        float period = mGeometry.getPeriod();
+        float highest = period > 0f ? touch + period / 2f : Float.POSITIVE_INFINITY;
+        float lowest = period > 0f ? touch - period / 2f : Float.NEGATIVE_INFINITY;
+        int closest = -1;
+        double closestDistance = maxDistance;
+
+        int start = lowerBound(touch);
+        // The bound is checked before thumbs 0, 1, 3, 7, ... of each walk. A walk then runs at
+        // most twice as far as it has to, but a bound that can't prune much, like a path
+        // coming back past the touch, costs a few checks instead of one per thumb.
+        int check = 0;
+        for(int k = 0; k < count; k++){
+            int r = start + k;
+            float wrap = 0f;
+            if(r >= count){
+                if(period == 0f){
+                    break;
+                }
+                r -= count;
+                wrap = period;
+            }
+            float position = mPositions[mOrder[r]];
+            if(position + wrap >= highest){
+                break;
+            }
+            if(k == check){
+                check = 2*check + 1;
+                if(mGeometry.getDistanceBound(x, y, position + wrap, highest) >= closestDistance){
+                    break;
+                }
+            }
+            double d = distanceBetweenPoints(x, y, mGeometry.getX(position), mGeometry.getY(position));
+            if(d < closestDistance){
+                closest = mOrder[r];
+                closestDistance = d;
+            }
+        }
+        check = 1;
+        for(int k = 1; k <= count; k++){
+            int r = start - k;
+            float wrap = 0f;
+            if(r < 0){
+                if(period == 0f){
+                    break;
+                }
+                r += count;
+                wrap = period;
+            }
+            float position = mPositions[mOrder[r]];
+            if(position - wrap < lowest){
+                break;
+            }
+            if(k == check){
+                check = 2*check + 1;
+                if(mGeometry.getDistanceBound(x, y, lowest, position - wrap) >= closestDistance){
+                    break;
+                }
+            }
+            double d = distanceBetweenPoints(x, y, mGeometry.getX(position), mGeometry.getY(position));
+            if(d < closestDistance){
+                closest = mOrder[r];
+                closestDistance = d;
+            }
+        }
+
+        return closest;
+    }
+
+    public static double distanceBetweenPoints(float startX, float startY, float endX, float endY){
+        double xDiff = endX - startX;
+        double yDiff = endY - startY;
+        return Math.sqrt(xDiff*xDiff + yDiff*yDiff);
+    }
+
+    // Only ever called from the model's own thread, so the sequence needs no atomic increment.
+    // The write opens with the first value that actually changes, so an update that moves
+    // nothing doesn't bump the version.
+    private void publish(int thumb, float value){
+        if(!mWriting){
+            mWriting = true;
+            mSequence++;
+        }
+        mPublished.set(thumb, Float.floatToIntBits(value));
+        if(mUpdateDepth == 0){
+            mWriting = false;
+            mSequence++;
+        }
+    }
+
+    private int stepIndexOf(float value){
+        int step = Math.round(Math.abs(value - mMin) / mStep);
+        if(step >= mStepCount){
+            return mStepCount;
+        } else if(step < 0){
+            return 0;
+        }
+
+        // A short last step: snap to max when it's nearer than the last whole step.
+        if(step == mStepCount - 1 && Math.abs(mMax - value) < Math.abs(stepValue(step) - value)){
+            return mStepCount;
+        }
+        return step;
+    }
+
+    // Step nearest position whose track position lies in low..high. Ordering limits are
+    // usually a rounding away from a step, so this is one or two lookups. If no step fits in
+    // the gap, the one nearest to it is used.
+    private int stepWithin(float position, float low, float high){
+        int step = stepIndexOf(valueAt(position));
+        // Positions are floats from a float mapping; don't skip a step over a last-bit error,
+        // but never allow so much that two separated thumbs could share a step.
+        float tolerance = Math.abs(mGeometry.getEnd() - mGeometry.getStart()) * 1e-5f;
+        float separation = separation();
+        if(separation > 0f){
+            tolerance = Math.min(tolerance, separation / 2);
+        }
+        int up = (mGeometry.getEnd() >= mGeometry.getStart()) == (mMax >= mMin) ? 1 : -1;
+        while(positionOf(stepValue(step)) < low - tolerance && isStep(step + up)){
+            step += up;
+        }
+        while(positionOf(stepValue(step)) > high + tolerance && isStep(step - up)){
+            step -= up;
+        }
+        return step;
+    }
+
+    private boolean isStep(int step){
+        return step >= 0 && step <= mStepCount;
+    }
+
+    private float stepValue(int step){
+        if(step >= mStepCount){
+            return mMax;
+        }
+        int direction = mMax >= mMin ? 1 : -1;
+        return mMin + direction * step * mStep;
+    }
+
+    public float clamp(float position){
+        float low = trackLow();
+        float high = trackHigh();
+        if(position > high){
+            return high;
+        } else if(position < low){
+            return low;
+        }
+        return position;
+    }
+
+    private float trackLow(){
+        return Math.min(mGeometry.getStart(), mGeometry.getEnd());
+    }
+
+    private float trackHigh(){
+        return Math.max(mGeometry.getStart(), mGeometry.getEnd());
+    }
+
+    public float valueAt(float position){
+        float span = mGeometry.getEnd() - mGeometry.getStart();
+        if(span == 0f){
+            return mMin;
+        }
+        if(mScale == ValueScale.LINEAR){
+            return (mMax - mMin) * (position - mGeometry.getStart()) / span + mMin;
+        }
+        return (mMax - mMin) * mScale.toValueFraction((position - mGeometry.getStart()) / span) + mMin;
+    }
+
+    public float positionOf(float value){
+        float range = mMax - mMin;
+        if(range == 0f){
+            return mGeometry.getStart();
+        }
+        float span = mGeometry.getEnd() - mGeometry.getStart();
+        if(mScale == ValueScale.LINEAR){
+            return span * (value - mMin) / range + mGeometry.getStart();
+        }
+        return span * mScale.toTrackFraction((value - mMin) / range) + mGeometry.getStart();
+    }
+
+    private void reorder(int thumb){
+        int r = mRank[thumb];
+        float position = mPositions[thumb];
+        while(r > 0 && mPositions[mOrder[r-1]] > position){
+            mOrder[r] = mOrder[r-1];
+            mRank[mOrder[r]] = r;
+            r--;
+        }
+        while(r < mOrder.length - 1 && mPositions[mOrder[r+1]] < position){
+            mOrder[r] = mOrder[r+1];
+            mRank[mOrder[r]] = r;
+            r++;
+        }
+        mOrder[r] = thumb;
+        mRank[thumb] = r;
+    }
+
+    // First rank whose thumb position is >= position.
+    private int lowerBound(float position){
+        int lo = 0;
+        int hi = mOrder.length;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(mPositions[mOrder[mid]] < position){
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,68 @@
+package reimschussel.diyslider;
+
+import java.nio.ByteBuffer;
+
+// What DIYSlider saves across activity recreation: every thumb's value and the thumb the
+// keys move. Positions aren't stored; they follow from the values and the size of the new
+// view. The whole state packs into one byte array, 8 bytes plus 4 per thumb, so saving and
+// restoring a thousand thumbs is one bulk copy each way rather than anything per thumb.
+public class SliderState {
+    private static final int HEADER_BYTES = 8;
+
+    private final float[] mValues;
+    private final int mKeyboardThumb;
+
+    public SliderState(float[] values, int keyboardThumb){
+        mValues = values;
+        mKeyboardThumb = keyboardThumb;
+    }
+
+    // The model's current values.
+    public static SliderState capture(SliderModel model, int keyboardThumb){
+        float[] values = new float[model.getThumbCount()];
+        model.getValues(values);
+        return new SliderState(values, keyboardThumb);
+    }
+
+    public float[] getValues(){
+        return mValues;
+    }
+
+    // Overrides one thumb's saved value, e.g. with where an animation is headed.
+    public void setValue(int thumb, float value){
+        mValues[thumb] = value;
+    }
+
+    public int getKeyboardThumb(){
+        return mKeyboardThumb;
+    }
+
+    public int getSizeInBytes(){
+        return HEADER_BYTES + 4 * mValues.length;
+    }
+
+    public byte[] toByteArray(){
+        ByteBuffer buffer = ByteBuffer.allocate(getSizeInBytes());
+        buffer.putInt(mValues.length);
+        buffer.putInt(mKeyboardThumb);
+        buffer.asFloatBuffer().put(mValues);
+        return buffer.array();
+    }
+
+    // Throws IllegalArgumentException if data isn't something toByteArray wrote.
+    public static SliderState fromByteArray(byte[] data){
+        if(data == null || data.length < HEADER_BYTES){
+            throw new IllegalArgumentException("Saved slider state is truncated");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int count = buffer.getInt();
+        int keyboardThumb = buffer.getInt();
+        if(count < 0 || data.length != HEADER_BYTES + 4L * count){
+            throw new IllegalArgumentException("Saved slider state has " + data.length
+                    + " bytes for " + count + " thumbs");
+        }
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        return new SliderState(values, keyboardThumb);
+    }
+}
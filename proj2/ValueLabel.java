@@ -0,0 +1,148 @@
+package reimschussel.diyslider;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+// A number drawn as text without allocating. Digits are formatted into a reused char[] and
+// drawn with Canvas.drawText(char[], ...), and the widths of the few glyphs a number can
+// contain are measured once per text size, so the label's width is a short sum instead of a
+// measureText call.
+public class ValueLabel {
+    private static final char[] GLYPHS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '.'};
+    private static final int MINUS = 10;
+    private static final int POINT = 11;
+    private static final int MAX_DECIMALS = 6;
+    private static final float[] POWERS_OF_TEN = {1f, 10f, 100f, 1000f, 10000f, 100000f, 1000000f};
+
+    // Sign, 19 digits of a long, a point and room for leading zeros.
+    private static final int MAX_CHARS = 28;
+
+    private final Paint mPaint;
+    private final float[] mGlyphWidths = new float[GLYPHS.length];
+    private float mMeasuredTextSize = -1f;
+    private float mAscent, mDescent;
+
+    // The text is written right to left, so it occupies mChars[mStart..MAX_CHARS).
+    private final char[] mChars = new char[MAX_CHARS];
+    private int mStart = MAX_CHARS;
+    private float mWidth;
+
+    private boolean mHasValue;
+    private long mScaledValue;
+    private int mDecimals;
+
+    public ValueLabel(Paint paint){
+        mPaint = paint;
+    }
+
+    public Paint getPaint(){
+        return mPaint;
+    }
+
+    // Returns whether the text changed.
+    public boolean setValue(int value){
+        return setScaled(value, 0);
+    }
+
+    // Shows value rounded to decimals places (0 to 6). Returns whether the text changed.
+    public boolean setValue(float value, int decimals){
+        if(decimals < 0){
+            decimals = 0;
+        } else if(decimals > MAX_DECIMALS){
+            decimals = MAX_DECIMALS;
+        }
+        return setScaled(Math.round((double)value * POWERS_OF_TEN[decimals]), decimals);
+    }
+
+    public int length(){
+        return MAX_CHARS - mStart;
+    }
+
+    public float getWidth(){
+        if(mPaint.getTextSize() != mMeasuredTextSize){
+            measureGlyphs();
+            mWidth = measureChars();
+        }
+        return mWidth;
+    }
+
+    public float getAscent(){
+        getWidth();
+        return mAscent;
+    }
+
+    public float getDescent(){
+        getWidth();
+        return mDescent;
+    }
+
+    // Draws the text with its left edge at x and its baseline at y.
+    public void draw(Canvas canvas, float x, float y){
+        canvas.drawText(mChars, mStart, MAX_CHARS - mStart, x, y, mPaint);
+    }
+
+    // Draws the text centered on (x, y) both ways.
+    public void drawCentered(Canvas canvas, float x, float y){
+        float width = getWidth();
+        draw(canvas, x - width/2, y - (mAscent + mDescent)/2);
+    }
+
+    private boolean setScaled(long scaled, int decimals){
+        if(mHasValue && scaled == mScaledValue && decimals == mDecimals){
+            return false;
+        }
+        mHasValue = true;
+        mScaledValue = scaled;
+        mDecimals = decimals;
+
+        // Long.MIN_VALUE has no positive counterpart; one off is invisible at that size.
+        boolean negative = scaled < 0;
+        long magnitude = negative ? -Math.max(scaled, -Long.MAX_VALUE) : scaled;
+
+        int i = MAX_CHARS;
+        int digits = 0;
+        do {
+            if(digits == decimals && decimals > 0){
+                mChars[--i] = GLYPHS[POINT];
+            }
+            mChars[--i] = GLYPHS[(int)(magnitude % 10)];
+            magnitude /= 10;
+            digits++;
+        } while(magnitude > 0 || digits <= decimals);
+
+        if(negative){
+            mChars[--i] = GLYPHS[MINUS];
+        }
+        mStart = i;
+
+        if(mPaint.getTextSize() != mMeasuredTextSize){
+            measureGlyphs();
+        }
+        mWidth = measureChars();
+        return true;
+    }
+
+    private void measureGlyphs(){
+        for(int i = 0; i < GLYPHS.length; i++){
+            mGlyphWidths[i] = mPaint.measureText(GLYPHS, i, 1);
+        }
+        mAscent = mPaint.ascent();
+        mDescent = mPaint.descent();
+        mMeasuredTextSize = mPaint.getTextSize();
+    }
+
+    private float measureChars(){
+        float width = 0f;
+        for(int i = mStart; i < MAX_CHARS; i++){
+            char c = mChars[i];
+            if(c == GLYPHS[MINUS]){
+                width += mGlyphWidths[MINUS];
+            } else if(c == GLYPHS[POINT]){
+                width += mGlyphWidths[POINT];
+            } else {
+                width += mGlyphWidths[c - '0'];
+            }
+        }
+        return width;
+    }
+}
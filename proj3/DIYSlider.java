@@ -1,15 +1,27 @@
 package reimschussel.diyslider;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PointF;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.view.Choreographer;
+import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 public class DIYSlider extends View {
@@ -19,84 +31,152 @@ public class DIYSlider extends View {
         void onStopObservingTouch(DIYSlider slider, ArrayList<Float> values);
     }
 
-    private class SliderThumb {
-        private PointF mPos;
-        private float mValue;
-        private boolean mActive;
-        private Paint mPaint;
-        private float mRadius;
-        private float mAngle;
+    // How onValueChanged is delivered while dragging: on every touch event, or coalesced so
+    // listeners hear about the latest values at most once per display frame.
+    public static final int DISPATCH_IMMEDIATE = ValueDispatcher.DISPATCH_IMMEDIATE;
+    public static final int DISPATCH_PER_FRAME = ValueDispatcher.DISPATCH_PER_FRAME;
 
-        SliderThumb(float angle, float value){
-            mPos = new PointF();
-            setAngle(angle);
-            mValue = value;
-            mActive = false;
-            mPaint = new Paint();
-            mPaint.setColor(THUMB_INACTIVE_COLOR);
-            mPaint.setAntiAlias(true);
-            mPaint.setStyle(Paint.Style.FILL);
-        }
+    // Whether thumbs may pass each other; see setThumbOrdering.
+    public static final int ORDERING_NONE = SliderModel.ORDERING_NONE;
+    public static final int ORDERING_BLOCK = SliderModel.ORDERING_BLOCK;
+    public static final int ORDERING_PUSH = SliderModel.ORDERING_PUSH;
 
-        PointF getPos(){
-            return mPos;
-        }
-        float getAngle(){
-            return mAngle;
+    // Same callbacks as OnDIYSliderChangeListener, but values come in a float[] owned by the
+    // slider and reused between calls. Copy it if you need it after the callback returns.
+    public interface OnDIYSliderPrimitiveChangeListener {
+        void onStartObservingTouch(DIYSlider slider, float[] values);
+        void onValueChanged(DIYSlider slider, float[] values);
+        void onStopObservingTouch(DIYSlider slider, float[] values);
+    }
+
+    // Paints for one look of a thumb, shared by every thumb that uses it.
+    private static class ThumbStyle {
+        private final int mInactiveColor, mActiveColor;
+        private final Paint mInactivePaint, mActivePaint;
+
+        ThumbStyle(int inactiveColor, int activeColor){
+            mInactiveColor = inactiveColor;
+            mActiveColor = activeColor;
+            mInactivePaint = newPaint(inactiveColor);
+            mActivePaint = newPaint(activeColor);
         }
-        float getEllipseAngle(){
-            float delta_x = mPos.x - mArcOrigin.x;
-            float delta_y = mArcOrigin.y - mPos.y;
-            float angle = (float) Math.toDegrees(Math.atan2(mWidth*delta_y, mHeight*delta_x));
 
-            if(angle < 0f){
-                angle = 0f;
-            } else if(angle > 90f){
-                angle = 90f;
-            }
-            return angle;
+        private static Paint newPaint(int color){
+            Paint paint = new Paint();
+            paint.setColor(color);
+            paint.setAntiAlias(true);
+            paint.setStyle(Paint.Style.FILL);
+            return paint;
         }
-        void setAngle(float angle){
-            mAngle = angle;
-            updatePos();
+    }
+
+    private static class TouchHistory {
+        private final float[] mPositions;
+        private final long[] mTimes;
+        private int mHead, mCount;
+
+        TouchHistory(int capacity){
+            mPositions = new float[capacity];
+            mTimes = new long[capacity];
         }
-        float getValue(){
-            return mValue;
+
+        void clear(){
+            mHead = 0;
+            mCount = 0;
         }
-        void setValue(float v){
-            mValue = v;
+
+        void add(float position, long time){
+            mPositions[mHead] = position;
+            mTimes[mHead] = time;
+            mHead = (mHead + 1) % mPositions.length;
+            if(mCount < mPositions.length){
+                mCount++;
+            }
         }
-        boolean isActive(){
-            return mActive;
+
+        int size(){
+            return mCount;
         }
-        void setActive(boolean isActive){
-            mActive = isActive;
+
+        // i = 0 is the oldest sample still held.
+        float getPosition(int i){
+            return mPositions[slot(i)];
         }
-        void setColor(int color){
-            mPaint.setColor(color);
+
+        long getTime(int i){
+            return mTimes[slot(i)];
         }
-        float getRadius(){
-            return mRadius;
+
+        // Least-squares slope of position over time across the samples no older than windowMs
+        // before the newest one, in position units per second. 0 with fewer than two samples.
+        float getVelocity(long windowMs){
+            if(mCount < 2){
+                return 0f;
+            }
+
+            long newest = getTime(mCount - 1);
+            int first = mCount - 1;
+            while(first > 0 && newest - getTime(first - 1) <= windowMs){
+                first--;
+            }
+            int n = mCount - first;
+            if(n < 2){
+                return 0f;
+            }
+
+            double meanTime = 0, meanPosition = 0;
+            for(int i = first; i < mCount; i++){
+                meanTime += getTime(i) - newest;
+                meanPosition += getPosition(i);
+            }
+            meanTime /= n;
+            meanPosition /= n;
+
+            double covariance = 0, variance = 0;
+            for(int i = first; i < mCount; i++){
+                double dt = getTime(i) - newest - meanTime;
+                covariance += dt * (getPosition(i) - meanPosition);
+                variance += dt * dt;
+            }
+            return variance == 0 ? 0f : (float)(covariance / variance * 1000.0);
         }
-        void setRadius(float radius){
-            mRadius = radius;
+
+        private int slot(int i){
+            return (mHead - mCount + i + mPositions.length) % mPositions.length;
         }
+    }
 
-        void updatePos(){
-            float cos = (float)Math.cos(Math.toRadians(mAngle));
-            float sin = (float)Math.sin(Math.toRadians(mAngle));
-            double a_2 = Math.pow(mWidth, 2);
-            double b_2 = Math.pow(mHeight, 2);
+    // What survives the activity being recreated, packed by SliderState into one byte array,
+    // so the Parcel holds a single bulk array however many thumbs there are.
+    static class SavedState extends BaseSavedState {
+        SliderState mState;
 
-            double k = 1/(Math.sqrt(b_2 * Math.pow(cos, 2) + a_2 * Math.pow(sin, 2)));
+        SavedState(Parcelable superState){
+            super(superState);
+        }
 
-            mPos.x = (float)(mArcOrigin.x + cos * k * mWidth * mHeight);
-            mPos.y = (float)(mArcOrigin.y - sin * k * mWidth * mHeight);
+        private SavedState(Parcel in){
+            super(in);
+            mState = SliderState.fromByteArray(in.createByteArray());
         }
 
-        void draw(Canvas canvas){
-            canvas.drawCircle(mPos.x, mPos.y, mRadius, mPaint);
+        @Override
+        public void writeToParcel(Parcel out, int flags){
+            super.writeToParcel(out, flags);
+            out.writeByteArray(mState.toByteArray());
         }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in){
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size){
+                return new SavedState[size];
+            }
+        };
     }
 
     private final float PADDING = 50f;
@@ -104,6 +184,7 @@ public class DIYSlider extends View {
     private final int TOTAL_PADDING = (int)PADDING + (int)THUMB_RADIUS;
     private final float ALLOWED_TOUCH_DIFFERENCE = THUMB_RADIUS + 10f;
     private final float LINE_STROKE_WIDTH = 20f;
+    private final float DEFAULT_ELLIPSE_ERROR_BOUND = 0.25f;
 
     private final int LINE_ACTIVE_COLOR = getResources().getColor(R.color.colorPrimary);
     private final int LINE_INACTIVE_COLOR = Color.LTGRAY;
@@ -113,17 +194,209 @@ public class DIYSlider extends View {
 
     private Paint mLinePaintActive, mLinePaintInactive;
 
+    // Optional density histogram under the track, made on the first setHistogramData.
+    private final int HISTOGRAM_COLOR = 0x50000000 | (LINE_ACTIVE_COLOR & 0x00FFFFFF);
+    private final float HISTOGRAM_HEIGHT = THUMB_RADIUS;
+    private HistogramOverlay mHistogram;
+
+    // mWidth and mHeight are the ellipse's radii. The arc and its origin fit in a box
+    // mTrackWidth x mTrackHeight, which sits inside TOTAL_PADDING on every side.
     private int mWidth, mWidthPercent, mHeight, mHeightPercent;
+    private int mAvailableWidth = 500, mAvailableHeight = 500;
+    private int mTrackWidth, mTrackHeight;
+    private final float[] mArcBounds = new float[4];
     private RectF mOvalBounds;
     private PointF mArcOrigin;
+    private SliderModel.EllipseGeometry mEllipse;
+    private SliderModel mModel;
+
+    // Optional offscreen copy of the inactive arc and the histogram under it. They only
+    // depend on size and histogram data, so they're drawn once per change and each frame just
+    // blits them.
+    private boolean mTrackCacheEnabled;
+    private boolean mTrackCacheValid;
+    private Bitmap mTrackCache;
 
-    private float mMin, mMax;
+    // Thumb drawing state (see ThumbStore); angles and values live in mModel. Per-event
+    // loops walk its arrays in order instead of chasing one object (and PointF) per thumb.
+    private int mThumbCount;
+    private ThumbStore mThumbs;
 
-    private SliderThumb mActiveThumb;
-    private ArrayList<SliderThumb> mThumbs = new ArrayList<>();
+    // A thumb's style is an index into mThumbStyles rather than Paints per thumb, so any
+    // number of thumbs share the default style's two Paints and pressing a thumb just picks
+    // the other one. Style 0 is the default. Radii and labels only get arrays once they're used.
+    private final ArrayList<ThumbStyle> mThumbStyles = new ArrayList<>();
+    private ValueLabel[] mThumbLabels;
+
+    // Area changed since the last invalidate, and the union of everything invalidated since
+    // the last draw (for getLastFrameRedrawnPixels).
+    private final float DIRTY_MARGIN = 2f;
+    private final RectF mDirtyRegion = new RectF();
+    private final Rect mDirtyRect = new Rect();
+    private final Rect mFrameDirtyRect = new Rect();
+    private final PointF mPrevThumbPos = new PointF();
+    private float mPrevThumbExtent, mPrevThumbAngle;
+    private boolean mFullRedraw = true;
+    private long mLastFrameRedrawnPixels;
+
+    // Optional value drawn on each thumb. The paint and labels are created when first enabled
+    // and share the paint, so drawing and updating them doesn't allocate.
+    private final float LABEL_TEXT_SIZE = THUMB_RADIUS * 0.6f;
+    private final int LABEL_COLOR = Color.WHITE;
+    private boolean mThumbLabelsEnabled;
+    private int mThumbLabelDecimals;
+    private Paint mLabelPaint;
+
+    // Pointers currently dragging thumbs. Slot i is held by pointer mPointerIds[i]
+    // (INVALID_POINTER_ID when free) and drags thumb mPointerThumbs[i]. A released
+    // slot keeps its thumb so that drag's history stays readable until the slot is reused.
+    private final int MAX_POINTERS = 10;
+    private final int[] mPointerIds = new int[MAX_POINTERS];
+    private final int[] mPointerThumbs = new int[MAX_POINTERS];
+    // Last track angle each pointer's drag went to, to tell a finger crossing the gap of a
+    // wide arc from one that really moved there.
+    private final float[] mPointerAngles = new float[MAX_POINTERS];
+    private boolean mValuesChanged;
+
+    // Optional hot-path timings, see setMetrics. Every use reads it into a local first, so a
+    // listener swapping it mid-event can't pair one recorder's start with another's end.
+    private SliderMetrics mMetrics;
+
+    // When enabled, every historical sample Android batches into a move is kept for velocity;
+    // thumbs and listeners still only see the final sample of each batch.
+    private final int TOUCH_HISTORY_SIZE = 64;
+    private boolean mTouchHistoryEnabled;
+    private TouchHistory[] mTouchHistories = new TouchHistory[MAX_POINTERS];
 
     private OnDIYSliderChangeListener mListener;
 
+    // Decides when listeners hear about changes; the view only posts its frames and does the
+    // delivering.
+    private Choreographer mChoreographer;
+    private final ValueDispatcher mDispatcher = new ValueDispatcher(new ValueDispatcher.Host() {
+        @Override
+        public void postFrame(){
+            if(mChoreographer == null){
+                mChoreographer = Choreographer.getInstance();
+            }
+            mChoreographer.postFrameCallback(mDispatchCallback);
+        }
+
+        @Override
+        public void removeFrame(){
+            mChoreographer.removeFrameCallback(mDispatchCallback);
+        }
+
+        @Override
+        public void dispatch(){
+            dispatchValueChanged();
+        }
+    });
+    private final Choreographer.FrameCallback mDispatchCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mDispatcher.doFrame(frameTimeNanos);
+        }
+    };
+
+    // Programmatic moves. An animating thumb has a start value, target and start time, and is
+    // listed in mAnimatingThumbs (mAnimationSlots holds its index there, -1 when idle). A new
+    // target for an animating thumb replaces the old one, so a burst of updates only animates
+    // toward the latest. One frame callback steps every animating thumb.
+    private final long DEFAULT_ANIMATION_DURATION_MS = 250;
+    private long mAnimationDurationNanos = DEFAULT_ANIMATION_DURATION_MS * 1000000L;
+    private float[] mAnimationFrom, mAnimationTo;
+    private long[] mAnimationStartNanos;
+    private int[] mAnimatingThumbs, mAnimationSlots;
+    private int mAnimatingCount;
+    private boolean mAnimationScheduled;
+    private final Choreographer.FrameCallback mAnimationCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mAnimationScheduled = false;
+            stepAnimations(frameTimeNanos);
+        }
+    };
+
+    // Optional inertia after a drag. Release velocity comes from the touch history, in
+    // degrees per second along the track; FlingIntegrator decays and integrates it at a fixed
+    // rate, and frames only apply the latest state to the thumbs.
+    private final float MIN_FLING_VELOCITY = 5f;
+    private final float MAX_FLING_VELOCITY = 720f;
+    private final long VELOCITY_WINDOW_MS = 100;
+    private boolean mFlingEnabled;
+    private FlingIntegrator mFlings;
+    private boolean mFlingScheduled;
+    private final Choreographer.FrameCallback mFlingCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFlingScheduled = false;
+            stepFlings(frameTimeNanos);
+        }
+    };
+
+    // Keyboard and accessibility control of one thumb at a time, mKeyboardThumb. Arrow keys
+    // move it a step (the value step, or 1% of the range without one), page keys ten steps,
+    // and Tab picks the next thumb. Presses only add up in mKeySteps; one frame applies the
+    // net change as a single move, and accessibility services hear about it at most once per
+    // ACCESSIBILITY_EVENT_INTERVAL_NANOS (see KeyStepQueue).
+    private final int KEY_PAGE_STEPS = 10;
+    private final float DEFAULT_KEY_STEP_FRACTION = 0.01f;
+    private final long ACCESSIBILITY_EVENT_INTERVAL_NANOS = 100000000L;
+    private final String SEEK_BAR_CLASS_NAME = "android.widget.SeekBar";
+    private ThumbAccessibilityHelper mAccessibilityHelper;
+    private int mKeyboardThumb;
+    private final PointF mHoverPoint = new PointF();
+
+    // Values from onRestoreInstanceState still waiting for a measured track.
+    private float[] mRestoredValues;
+    private final KeyStepQueue mKeySteps = new KeyStepQueue(new KeyStepQueue.Host() {
+        @Override
+        public boolean canMove(int thumb, int steps){
+            float end = steps > 0 ? mModel.getMax() : mModel.getMin();
+            return !isThumbActive(thumb) && mModel.wouldChange(thumb, mModel.positionOf(end));
+        }
+
+        @Override
+        public boolean applySteps(int thumb, int steps){
+            return applyKeySteps(thumb, steps);
+        }
+
+        @Override
+        public void postFrame(){
+            if(mChoreographer == null){
+                mChoreographer = Choreographer.getInstance();
+            }
+            mChoreographer.postFrameCallback(mKeyCallback);
+        }
+
+        @Override
+        public void removeFrame(){
+            mChoreographer.removeFrameCallback(mKeyCallback);
+        }
+
+        @Override
+        public void announce(int thumb){
+            if(thumb == KeyStepQueue.ALL_THUMBS){
+                mAccessibilityHelper.invalidateRoot();
+            } else {
+                mAccessibilityHelper.invalidateVirtualView(thumb);
+            }
+        }
+    }, ACCESSIBILITY_EVENT_INTERVAL_NANOS);
+    private final Choreographer.FrameCallback mKeyCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mKeySteps.doFrame(frameTimeNanos);
+        }
+    };
+    private OnDIYSliderPrimitiveChangeListener mPrimitiveListener;
+
+    // Scratch objects reused on every touch event so dragging doesn't allocate.
+    private final PointF mTouchPoint = new PointF();
+    private final PointF mHistoryPoint = new PointF();
+    private float[] mValueSnapshot;
+
     public DIYSlider(Context context, int thumbCount, float min, float max, int widthPercent, int heightPercent){
         super(context);
 
@@ -139,12 +412,11 @@ public class DIYSlider extends View {
         mLinePaintInactive.setStrokeWidth(LINE_STROKE_WIDTH);
         mLinePaintInactive.setStyle(Paint.Style.STROKE);
 
-        mMin = min;
-        mMax = max;
-
         // Defaults if nothing happens.
         mWidth = 500;
         mHeight = 500;
+        mTrackWidth = mWidth;
+        mTrackHeight = mHeight;
 
         mArcOrigin = new PointF(TOTAL_PADDING, mHeight + TOTAL_PADDING);
 
@@ -155,6 +427,10 @@ public class DIYSlider extends View {
         mOvalBounds.right = mArcOrigin.x + mWidth;
         mOvalBounds.top = mArcOrigin.y - mHeight;
 
+        mEllipse = new SliderModel.EllipseGeometry(mArcOrigin.x, mArcOrigin.y, mWidth, mHeight,
+                DEFAULT_ELLIPSE_ERROR_BOUND);
+        mModel = new SliderModel(mEllipse, thumbCount, min, max);
+
         // Force 0 <= widthPercent <= 100
         mWidthPercent = widthPercent;
         if(mWidthPercent > 100) {
@@ -171,13 +447,32 @@ public class DIYSlider extends View {
             mHeightPercent = 0;
         }
 
-        // Default thumbs to 0 positions/values if nothing happens.
+        // Default thumbs to the start of the arc if nothing happens.
+        mThumbStyles.add(new ThumbStyle(THUMB_INACTIVE_COLOR, THUMB_ACTIVE_COLOR));
+        mThumbCount = thumbCount;
+        mThumbs = new ThumbStore(thumbCount, THUMB_RADIUS);
         for(int i = 0; i < thumbCount; i++){
-            SliderThumb t = new SliderThumb(0f, 0f);
-            t.setRadius(THUMB_RADIUS);
-            mThumbs.add(t);
+            updateThumbPos(i);
         }
-        invalidate();
+
+        Arrays.fill(mPointerIds, MotionEvent.INVALID_POINTER_ID);
+        Arrays.fill(mPointerThumbs, -1);
+        for(int i = 0; i < MAX_POINTERS; i++){
+            mTouchHistories[i] = new TouchHistory(TOUCH_HISTORY_SIZE);
+        }
+        mAnimationFrom = new float[thumbCount];
+        mAnimationTo = new float[thumbCount];
+        mAnimationStartNanos = new long[thumbCount];
+        mAnimatingThumbs = new int[thumbCount];
+        mAnimationSlots = new int[thumbCount];
+        Arrays.fill(mAnimationSlots, -1);
+        mFlings = new FlingIntegrator(mModel, MIN_FLING_VELOCITY, MAX_FLING_VELOCITY);
+        mValueSnapshot = new float[thumbCount];
+
+        setFocusable(true);
+        mAccessibilityHelper = new ThumbAccessibilityHelper(this);
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+        invalidateAll();
     }
 
     public void setListener(OnDIYSliderChangeListener listener){
@@ -186,26 +481,63 @@ public class DIYSlider extends View {
     }
 
     public void removeListener(){
+        flushValueChanged();
         mListener.onStopObservingTouch(this, getThumbValues());
         mListener = null;
     }
 
+    public void setPrimitiveListener(OnDIYSliderPrimitiveChangeListener listener){
+        mPrimitiveListener = listener;
+        getThumbValues(mValueSnapshot);
+        mPrimitiveListener.onStartObservingTouch(this, mValueSnapshot);
+    }
+
+    public void removePrimitiveListener(){
+        flushValueChanged();
+        getThumbValues(mValueSnapshot);
+        mPrimitiveListener.onStopObservingTouch(this, mValueSnapshot);
+        mPrimitiveListener = null;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec){
-        mWidth = 500;
+        mAvailableWidth = 500;
         if(MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED){
-            mWidth = MeasureSpec.getSize(widthMeasureSpec) * mWidthPercent/100;
+            mAvailableWidth = MeasureSpec.getSize(widthMeasureSpec) * mWidthPercent/100;
         }
 
-        mHeight = 500;
+        mAvailableHeight = 500;
         if(MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED){
-            mHeight = MeasureSpec.getSize(heightMeasureSpec) * mHeightPercent/100;
+            mAvailableHeight = MeasureSpec.getSize(heightMeasureSpec) * mHeightPercent/100;
         }
-        setMeasuredDimension(mWidth + 2*TOTAL_PADDING,
-                            mHeight + 2*TOTAL_PADDING);
 
-        mArcOrigin.x = TOTAL_PADDING;
-        mArcOrigin.y = mHeight + TOTAL_PADDING;
+        layoutArc();
+        setMeasuredDimension(mTrackWidth + 2*TOTAL_PADDING,
+                            mTrackHeight + 2*TOTAL_PADDING);
+        invalidateAll();
+    }
+
+    // Sizes the ellipse so the arc and its origin fill the available box, then puts the
+    // origin where that box starts. For the default quarter arc the radii are the whole box
+    // and the origin is its bottom-left corner.
+    private void layoutArc(){
+        // Bounds at the current radii give the arc's size in radii; never grow past the box.
+        mEllipse.getArcBounds(mArcBounds);
+        float radiiAcross = Math.max(1f, (mArcBounds[2] - mArcBounds[0]) / Math.max(mEllipse.getWidth(), 1));
+        float radiiDown = Math.max(1f, (mArcBounds[3] - mArcBounds[1]) / Math.max(mEllipse.getHeight(), 1));
+        mWidth = (int)(mAvailableWidth / radiiAcross);
+        mHeight = (int)(mAvailableHeight / radiiDown);
+
+        boolean rebuilt = mEllipse.setBounds(mArcOrigin.x, mArcOrigin.y, mWidth, mHeight);
+        mEllipse.getArcBounds(mArcBounds);
+        mTrackWidth = (int)Math.ceil(mArcBounds[2] - mArcBounds[0]);
+        mTrackHeight = (int)Math.ceil(mArcBounds[3] - mArcBounds[1]);
+
+        float originX = TOTAL_PADDING - mArcBounds[0];
+        float originY = TOTAL_PADDING + mArcBounds[3];
+        boolean moved = originX != mArcOrigin.x || originY != mArcOrigin.y;
+        mArcOrigin.x = originX;
+        mArcOrigin.y = originY;
 
         // Left/bottom halves of oval could be off screen entirely.
         mOvalBounds.left = mArcOrigin.x - mWidth;
@@ -213,152 +545,1272 @@ public class DIYSlider extends View {
         mOvalBounds.right = mArcOrigin.x + mWidth;
         mOvalBounds.top = mArcOrigin.y - mHeight;
 
-        invalidate();
+        mEllipse.setBounds(mArcOrigin.x, mArcOrigin.y, mWidth, mHeight);
+        if(rebuilt || moved){
+            // The arc moved, so keep thumbs on it.
+            for(int i = 0; i < mThumbCount; i++){
+                updateThumbPos(i);
+            }
+            invalidateTrackShape();
+        }
+    }
+
+    // Shape of the track: the arc starts at startAngle degrees, counter-clockwise from the
+    // 3 o'clock direction, and sweeps sweepAngle degrees. A negative sweep runs clockwise, and
+    // 360 makes a full dial. Values run from the start (min) to the end (max), and every thumb
+    // keeps its value. The default is setArc(0, 90), the quarter arc up and to the right.
+    public void setArc(float startAngle, float sweepAngle){
+        cancelFlings();
+        if(!mEllipse.setArc(startAngle, sweepAngle)){
+            return;
+        }
+        mModel.remapPositions();
+        layoutArc();
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbPos(i);
+        }
+        invalidateTrackShape();
+        requestLayout();
+        invalidateAll();
+    }
+
+    public float getArcStartAngle(){
+        return mEllipse.getStartAngle();
+    }
+
+    public float getArcSweepAngle(){
+        return mEllipse.getSweepAngle();
+    }
+
+    // Maximum distance, in pixels, a thumb may land from the true ellipse. Smaller bounds
+    // cost a larger lookup table; the table is rebuilt here and on size changes only.
+    public void setEllipseErrorBound(float pixels){
+        mEllipse.setErrorBound(pixels);
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbPos(i);
+        }
+        invalidateAll();
+    }
+
+    public float getEllipseMaxError(){
+        return mEllipse.getMaxError();
+    }
+
+    // The slider's geometry, value mapping and thumb state, usable without the view.
+    public SliderModel getModel(){
+        return mModel;
+    }
+
+    public void setDispatchMode(int mode){
+        mDispatcher.setMode(mode, System.nanoTime());
+    }
+
+    // Records touch, listener and draw timings into metrics; null, the default, stops. Without
+    // metrics the hot paths don't even read the clock.
+    public void setMetrics(SliderMetrics metrics){
+        mMetrics = metrics;
+    }
+
+    public SliderMetrics getMetrics(){
+        return mMetrics;
+    }
+
+    // Caps coalesced dispatch below the display rate. 0 means once per frame.
+    public void setMaxDispatchRate(float callbacksPerSecond){
+        mDispatcher.setMaxRate(callbacksPerSecond);
     }
 
+    public void setTrackCacheEnabled(boolean enabled){
+        mTrackCacheEnabled = enabled;
+        if(!mTrackCacheEnabled){
+            releaseTrackCache();
+        }
+        invalidateAll();
+    }
+
+    @Override
+    protected void onDetachedFromWindow(){
+        super.onDetachedFromWindow();
+        cancelFlings();
+        releaseTrackCache();
+        finishAnimations();
+        mKeySteps.cancel();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState(){
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        SliderState saved = SliderState.capture(mModel, mKeyboardThumb);
+        // Animating thumbs are saved where they're headed.
+        for(int i = 0; i < mAnimatingCount; i++){
+            int thumb = mAnimatingThumbs[i];
+            saved.setValue(thumb, mAnimationTo[thumb]);
+        }
+        state.mState = saved;
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable parcelable){
+        if(!(parcelable instanceof SavedState)){
+            super.onRestoreInstanceState(parcelable);
+            return;
+        }
+        SavedState state = (SavedState)parcelable;
+        super.onRestoreInstanceState(state.getSuperState());
+
+        if(state.mState.getKeyboardThumb() < mThumbCount){
+            mKeyboardThumb = state.mState.getKeyboardThumb();
+        }
+        mRestoredValues = state.mState.getValues();
+        applyRestoredValues();
+    }
+
+    // Puts thumbs back on restored values with one notification, like setThumbValues.
+    private void applyRestoredValues(){
+        if(mRestoredValues == null){
+            return;
+        }
+        cancelAnimations();
+        cancelFlings();
+        setThumbValues(mRestoredValues, false);
+        mRestoredValues = null;
+        invalidateAll();
+    }
+
+    public void setTouchHistoryEnabled(boolean enabled){
+        mTouchHistoryEnabled = enabled;
+        for(int i = 0; i < MAX_POINTERS; i++){
+            mTouchHistories[i].clear();
+        }
+    }
+
+    // Copies the samples of the latest drag of thumb (an index into the thumbs), oldest first,
+    // into positions (angle) and times (ms). Returns how many samples were copied.
+    public int getTouchHistory(int thumb, float[] positions, long[] times){
+        int slot = findThumbSlot(thumb);
+        if(slot < 0){
+            return 0;
+        }
+
+        TouchHistory history = mTouchHistories[slot];
+        int count = Math.min(history.size(), Math.min(positions.length, times.length));
+        int skip = history.size() - count;
+        for(int i = 0; i < count; i++){
+            positions[i] = history.getPosition(skip + i);
+            times[i] = history.getTime(skip + i);
+        }
+        return count;
+    }
+
+    // Lets a released thumb keep moving with the finger's velocity and coast to a stop.
+    // Records touch history for the velocity even if setTouchHistoryEnabled is off.
+    public void setFlingEnabled(boolean enabled){
+        mFlingEnabled = enabled;
+        if(!mFlingEnabled){
+            cancelFlings();
+        }
+    }
+
+    // Snaps thumb values to multiples of step from min; 0 turns it off. Listeners then only
+    // hear about a thumb when it crosses onto a different step.
+    public void setValueStep(float step){
+        mModel.setStep(step);
+        updateThumbLabels();
+    }
+
+    // Spreads values along the track through scale, e.g. new SliderModel.LogScale(max / min)
+    // for a frequency range; null goes back to linear. Thumbs keep their values and move to
+    // wherever the new scale puts them.
+    public void setValueScale(SliderModel.ValueScale scale){
+        cancelFlings();
+        mModel.setValueScale(scale);
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbPos(i);
+        }
+        invalidateTrackShape();
+        invalidateAll();
+    }
+
+    public SliderModel.ValueScale getValueScale(){
+        return mModel.getValueScale();
+    }
+
+    // Draws a histogram of data[0..count) under the track, counted into bins equal slices of
+    // the range; null clears it. Only the bin counts are kept, and the bars are rebuilt from
+    // them when the data or the track's shape changes, not when thumbs move.
+    public void setHistogramData(float[] data, int count, int bins){
+        if(data == null){
+            if(mHistogram != null){
+                mHistogram.clear();
+            }
+        } else {
+            if(mHistogram == null){
+                mHistogram = new HistogramOverlay(mModel.getMin(), mModel.getMax(),
+                        HISTOGRAM_COLOR, HISTOGRAM_HEIGHT);
+            }
+            mHistogram.setData(data, count, bins);
+        }
+        onHistogramChanged();
+    }
+
+    // Adds data[offset..offset+count) to the histogram's bins without recounting what's
+    // already there. Does nothing before setHistogramData.
+    public void appendHistogramData(float[] data, int offset, int count){
+        if(mHistogram == null){
+            return;
+        }
+        mHistogram.append(data, offset, count);
+        onHistogramChanged();
+    }
+
+    public HistogramOverlay getHistogram(){
+        return mHistogram;
+    }
+
+    // Gives one thumb its own colors. Thumbs with the same pair of colors share Paints.
+    public void setThumbColors(int thumb, int inactiveColor, int activeColor){
+        int style = findThumbStyle(inactiveColor, activeColor);
+        if(style < 0){
+            style = mThumbStyles.size();
+            mThumbStyles.add(new ThumbStyle(inactiveColor, activeColor));
+        }
+
+        beginThumbChange(thumb);
+        mThumbs.setStyle(thumb, style);
+        endThumbChange(thumb, true);
+        invalidateDirtyRegion();
+    }
+
+    public void resetThumbColors(int thumb){
+        setThumbColors(thumb, THUMB_INACTIVE_COLOR, THUMB_ACTIVE_COLOR);
+    }
+
+    // Draws one thumb at a different size. Touch slop stays based on the default radius.
+    public void setThumbRadius(int thumb, float radius){
+        if(radius == mThumbs.getRadius(thumb)){
+            return;
+        }
+
+        beginThumbChange(thumb);
+        mThumbs.setRadius(thumb, radius);
+        endThumbChange(thumb, true);
+        invalidateDirtyRegion();
+    }
+
+    private int findThumbStyle(int inactiveColor, int activeColor){
+        for(int i = 0; i < mThumbStyles.size(); i++){
+            ThumbStyle style = mThumbStyles.get(i);
+            if(style.mInactiveColor == inactiveColor && style.mActiveColor == activeColor){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Draws each thumb's value on it.
+    public void setThumbLabelsEnabled(boolean enabled){
+        if(enabled == mThumbLabelsEnabled){
+            return;
+        }
+        mThumbLabelsEnabled = enabled;
+
+        if(mThumbLabelsEnabled && mLabelPaint == null){
+            mLabelPaint = new Paint();
+            mLabelPaint.setColor(LABEL_COLOR);
+            mLabelPaint.setAntiAlias(true);
+            mLabelPaint.setTextSize(LABEL_TEXT_SIZE);
+        }
+        if(mThumbLabelsEnabled){
+            mThumbLabels = new ValueLabel[mThumbCount];
+            for(int i = 0; i < mThumbCount; i++){
+                mThumbLabels[i] = new ValueLabel(mLabelPaint);
+                updateThumbLabel(i);
+            }
+        } else {
+            mThumbLabels = null;
+        }
+        invalidateAll();
+    }
+
+    // Decimal places shown on thumb labels (0 to 6). Ignored with whole-number steps.
+    public void setThumbLabelDecimals(int decimals){
+        mThumbLabelDecimals = decimals;
+        updateThumbLabels();
+    }
+
+    private void updateThumbLabels(){
+        if(!mThumbLabelsEnabled){
+            return;
+        }
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbLabel(i);
+        }
+        invalidateAll();
+    }
 
     public void setup(){
-        // Determine equidistant angles for thumbs along arc
-        float angleSpacing = 90f / (float)(mThumbs.size());
+        mRestoredValues = null;
+        cancelAnimations();
+        cancelFlings();
 
-        for(int i = 0; i < mThumbs.size(); i++){
-            float angle = angleSpacing * (i+1);
-            mThumbs.get(i).setAngle(angle);
+        // Determine equidistant angles for thumbs along arc, in increasing angle like
+        // thumb ordering expects.
+        float low = Math.min(mEllipse.getStart(), mEllipse.getEnd());
+        float angleSpacing = Math.abs(mEllipse.getSweepAngle()) / (float)(mThumbCount);
 
-            float value = getAngleValueOnSlider(angle);
-            mThumbs.get(i).setValue(value);
+        // Last to first, so with ordering on no thumb is blocked by one still at the start.
+        for(int i = mThumbCount - 1; i >= 0; i--){
+            float angle = low + angleSpacing * (i+1);
+            setThumbAngle(i, angle);
         }
 
-        invalidate();
+        invalidateAll();
+    }
+
+    // How long animated setThumbValue(s) calls take to reach their targets. 0 jumps straight there.
+    public void setAnimationDuration(long millis){
+        mAnimationDurationNanos = Math.max(0L, millis) * 1000000L;
+    }
+
+    public void setThumbValue(int thumb, float value){
+        setThumbValue(thumb, value, false);
+    }
+
+    // Moves thumb to value (clamped to min..max), either right away or animated. A thumb
+    // being dragged stays with the finger and ignores this.
+    public void setThumbValue(int thumb, float value, boolean animate){
+        boolean changed = moveThumbTo(thumb, value, animate, System.nanoTime());
+        finishThumbMoves(changed);
+    }
+
+    // Moves thumb i to values[i] for every thumb values covers, with one listener
+    // notification, one invalidate and one update for readThumbValues for the whole batch.
+    public void setThumbValues(float[] values, boolean animate){
+        long now = System.nanoTime();
+        int count = Math.min(values.length, mThumbCount);
+        boolean changed = false;
+        mModel.beginUpdate();
+        // Thumbs moving up go last to first and thumbs moving down first to last, so with
+        // ordering on an ordered batch never runs into a neighbour that hasn't moved yet.
+        for(int i = count - 1; i >= 0; i--){
+            if(values[i] > mModel.getValue(i) && moveThumbTo(i, values[i], animate, now)){
+                changed = true;
+            }
+        }
+        for(int i = 0; i < count; i++){
+            if(values[i] <= mModel.getValue(i) && moveThumbTo(i, values[i], animate, now)){
+                changed = true;
+            }
+        }
+        mModel.endUpdate();
+        finishThumbMoves(changed);
+    }
+
+    // Keeps thumb i at or after thumb i-1, at least minSeparation (in value units) apart.
+    // ORDERING_BLOCK stops a dragged thumb at its neighbours, ORDERING_PUSH shoves them along.
+    // Turning it on sorts the current values onto the thumbs in order.
+    public void setThumbOrdering(int ordering, float minSeparation){
+        mModel.setOrdering(ordering, minSeparation);
+        if(ordering == ORDERING_NONE){
+            return;
+        }
+
+        for(int i = 0; i < mThumbCount; i++){
+            updateThumbPos(i);
+        }
+        notifyValuesChanged();
+        invalidateAll();
     }
 
     @Override
-    protected synchronized void onDraw(Canvas canvas){
+    protected void onDraw(Canvas canvas){
         super.onDraw(canvas);
+        SliderMetrics metrics = mMetrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0L;
+        recordRedrawnPixels();
+
         // Check number of thumbs in slider to determine where "active" color starts/ends.
         // More than 1 thumb: "active" is between original first and last thumbs.
         // Exactly 1 thumb: "active" is from beginning of line to thumb.
         // 0|default: No part of the line is "active".
         float activeAngleStart = 0f;
         float activeAngleEnd = 0f;
-        if(mThumbs.size() > 1){
-            activeAngleStart = mThumbs.get(0).getEllipseAngle();
-            activeAngleEnd = mThumbs.get(mThumbs.size() - 1).getEllipseAngle() - activeAngleStart;
-        } else if (mThumbs.size() == 1){
-            activeAngleStart = 0f;
-            activeAngleEnd = mThumbs.get(0).getEllipseAngle();
+        if(mThumbCount > 1){
+            activeAngleStart = getThumbEllipseAngle(0);
+            activeAngleEnd = getThumbEllipseAngle(mThumbCount - 1) - activeAngleStart;
+        } else if (mThumbCount == 1){
+            activeAngleStart = mEllipse.getEllipseAngle(mEllipse.getStart());
+            activeAngleEnd = getThumbEllipseAngle(0) - activeAngleStart;
         }
 
         activeAngleStart *= -1;
         activeAngleEnd *= -1;
 
-        canvas.drawArc(mOvalBounds,0f, -90f, false, mLinePaintInactive);
+        drawTrack(canvas);
         canvas.drawArc(mOvalBounds, activeAngleStart, activeAngleEnd, false, mLinePaintActive);
 
-        for(SliderThumb t : mThumbs){
-            t.draw(canvas);
+        for(int i = 0; i < mThumbCount; i++){
+            drawThumb(canvas, i);
+        }
+        if(metrics != null){
+            metrics.record(SliderMetrics.METRIC_DRAW, startNanos, System.nanoTime());
+        }
+    }
+
+    private void drawTrack(Canvas canvas){
+        if(!mTrackCacheEnabled){
+            drawTrackArc(canvas);
+            return;
+        }
+
+        if(!mTrackCacheValid){
+            buildTrackCache();
+        }
+        canvas.drawBitmap(mTrackCache, 0f, 0f, null);
+    }
+
+    // The arc or value scale changed, so the cached track and the histogram's bars are stale.
+    private void invalidateTrackShape(){
+        mTrackCacheValid = false;
+        if(mHistogram != null){
+            mHistogram.invalidateShape();
+        }
+    }
+
+    private void onHistogramChanged(){
+        mTrackCacheValid = false;
+        invalidateAll();
+    }
+
+    private void buildTrackCache(){
+        int width = mTrackWidth + 2*TOTAL_PADDING;
+        int height = mTrackHeight + 2*TOTAL_PADDING;
+        if(mTrackCache == null || mTrackCache.getWidth() != width || mTrackCache.getHeight() != height){
+            releaseTrackCache();
+            mTrackCache = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        } else {
+            mTrackCache.eraseColor(Color.TRANSPARENT);
+        }
+
+        Canvas cacheCanvas = new Canvas(mTrackCache);
+        drawTrackArc(cacheCanvas);
+        mTrackCacheValid = true;
+    }
+
+    // Canvas angles run clockwise, so the arc's angles are negated. The histogram goes first
+    // so the arc is drawn over it.
+    private void drawTrackArc(Canvas canvas){
+        if(mHistogram != null){
+            mHistogram.draw(canvas, mModel);
+        }
+        float start = mEllipse.getEllipseAngle(mEllipse.getStart());
+        float sweep = mEllipse.getEllipseAngle(mEllipse.getEnd()) - start;
+        canvas.drawArc(mOvalBounds, -start, -sweep, false, mLinePaintInactive);
+    }
+
+    private void releaseTrackCache(){
+        if(mTrackCache != null){
+            mTrackCache.recycle();
+            mTrackCache = null;
+        }
+        mTrackCacheValid = false;
+    }
+
+    private void notifyValuesChanged(){
+        mDispatcher.valuesChanged();
+    }
+
+    private void dispatchValueChanged(){
+        // Only bug the listeners if there's a thumb to report.
+        if(mThumbCount > 0){
+            SliderMetrics metrics = mPrimitiveListener != null || mListener != null ? mMetrics : null;
+            long startNanos = metrics != null ? System.nanoTime() : 0L;
+            if(mPrimitiveListener != null){
+                getThumbValues(mValueSnapshot);
+                mPrimitiveListener.onValueChanged(this, mValueSnapshot);
+            }
+            if(mListener != null){
+                mListener.onValueChanged(this, getThumbValues());
+            }
+            if(metrics != null){
+                metrics.record(SliderMetrics.METRIC_LISTENER, startNanos, System.nanoTime());
+            }
+        }
+    }
+
+    // Returns whether the thumb's value changed right away; an animated move changes it later.
+    private boolean moveThumbTo(int thumb, float value, boolean animate, long nowNanos){
+        if(isThumbActive(thumb)){
+            return false;
+        }
+
+        stopFling(thumb);
+        if(!animate || mAnimationDurationNanos == 0){
+            stopAnimation(thumb);
+            beginThumbChange(thumb);
+            boolean changed = applyThumbValue(thumb, value);
+            endThumbChange(thumb, false);
+            return changed;
+        }
+
+        // Restart from wherever the thumb is now, including mid-way to an older target.
+        if(mAnimationSlots[thumb] < 0){
+            mAnimationSlots[thumb] = mAnimatingCount;
+            mAnimatingThumbs[mAnimatingCount++] = thumb;
+        }
+        mAnimationFrom[thumb] = mModel.valueAt(mModel.getPosition(thumb));
+        mAnimationTo[thumb] = value;
+        mAnimationStartNanos[thumb] = nowNanos;
+        return false;
+    }
+
+    private void finishThumbMoves(boolean changed){
+        if(changed){
+            notifyValuesChanged();
+        }
+        invalidateDirtyRegion();
+        if(mAnimatingCount > 0){
+            scheduleAnimation();
+        }
+    }
+
+    private void stepAnimations(long frameTimeNanos){
+        boolean changed = false;
+        mModel.beginUpdate();
+        // Backwards, so a finished thumb swapped out of the list is one already stepped.
+        for(int i = mAnimatingCount - 1; i >= 0; i--){
+            int thumb = mAnimatingThumbs[i];
+            float from = mAnimationFrom[thumb];
+            float to = mAnimationTo[thumb];
+            // Frame time can be a little older than the call that started the animation.
+            long elapsed = Math.max(frameTimeNanos - mAnimationStartNanos[thumb], 0L);
+
+            float value;
+            boolean finished = elapsed >= mAnimationDurationNanos;
+            if(finished){
+                value = to;
+            } else {
+                // Decelerate into the target.
+                float fraction = elapsed / (float)mAnimationDurationNanos;
+                float eased = 1f - (1f - fraction)*(1f - fraction);
+                value = from + (to - from)*eased;
+            }
+
+            float before = mModel.getPosition(thumb);
+            beginThumbChange(thumb);
+            if(applyThumbValue(thumb, value)){
+                changed = true;
+            }
+            endThumbChange(thumb, false);
+
+            // With ordering on, a neighbour still on its way can block the last step. Keep
+            // trying while the thumb makes progress.
+            float position = mModel.getPosition(thumb);
+            if(finished && (position == before || position == mModel.clamp(mModel.positionOf(to)))){
+                stopAnimation(thumb);
+            }
+        }
+        mModel.endUpdate();
+        finishThumbMoves(changed);
+    }
+
+    private void stopAnimation(int thumb){
+        int slot = mAnimationSlots[thumb];
+        if(slot < 0){
+            return;
+        }
+        int last = mAnimatingThumbs[--mAnimatingCount];
+        mAnimatingThumbs[slot] = last;
+        mAnimationSlots[last] = slot;
+        mAnimationSlots[thumb] = -1;
+    }
+
+    // Drops every animation where it is.
+    private void cancelAnimations(){
+        while(mAnimatingCount > 0){
+            stopAnimation(mAnimatingThumbs[mAnimatingCount - 1]);
+        }
+    }
+
+    // Jumps every animation to its target, e.g. when there are no more frames coming.
+    private void finishAnimations(){
+        if(mAnimationScheduled){
+            mChoreographer.removeFrameCallback(mAnimationCallback);
+            mAnimationScheduled = false;
+        }
+
+        boolean changed = false;
+        mModel.beginUpdate();
+        while(mAnimatingCount > 0){
+            int thumb = mAnimatingThumbs[mAnimatingCount - 1];
+            stopAnimation(thumb);
+            beginThumbChange(thumb);
+            if(applyThumbValue(thumb, mAnimationTo[thumb])){
+                changed = true;
+            }
+            endThumbChange(thumb, false);
+        }
+        mModel.endUpdate();
+        finishThumbMoves(changed);
+    }
+
+    private void scheduleAnimation(){
+        if(mAnimationScheduled){
+            return;
+        }
+        if(mChoreographer == null){
+            mChoreographer = Choreographer.getInstance();
+        }
+        mAnimationScheduled = true;
+        mChoreographer.postFrameCallback(mAnimationCallback);
+    }
+
+    private void startFling(int thumb, float velocity){
+        if(mFlings.start(thumb, velocity, System.nanoTime())){
+            scheduleFling();
+        }
+    }
+
+    private void stepFlings(long frameTimeNanos){
+        mFlings.advance(frameTimeNanos);
+
+        boolean changed = false;
+        mModel.beginUpdate();
+        // Backwards, so a finished thumb swapped out of the list is one already applied.
+        for(int i = mFlings.getCount() - 1; i >= 0; i--){
+            int thumb = mFlings.getThumb(i);
+            beginThumbChange(thumb);
+            if(setThumbAngle(thumb, mFlings.getPosition(thumb))){
+                changed = true;
+            }
+            endThumbChange(thumb, false);
+            mFlings.applied(thumb);
+            if(mFlings.isFinished(thumb)){
+                mFlings.stop(thumb);
+            }
+        }
+        mModel.endUpdate();
+
+        if(changed){
+            notifyValuesChanged();
+        }
+        invalidateDirtyRegion();
+        if(mFlings.getCount() > 0){
+            scheduleFling();
+        } else {
+            // Same as the end of a drag: listeners get the resting values now.
+            flushValueChanged();
+        }
+    }
+
+    private void stopFling(int thumb){
+        mFlings.stop(thumb);
+    }
+
+    // Stops every fling where it is.
+    private void cancelFlings(){
+        if(mFlingScheduled){
+            mChoreographer.removeFrameCallback(mFlingCallback);
+            mFlingScheduled = false;
+        }
+        mFlings.cancel();
+    }
+
+    private void scheduleFling(){
+        if(mFlingScheduled){
+            return;
+        }
+        if(mChoreographer == null){
+            mChoreographer = Choreographer.getInstance();
+        }
+        mFlingScheduled = true;
+        mChoreographer.postFrameCallback(mFlingCallback);
+    }
+
+    // Delivers any coalesced values right away so listeners always see the final position.
+    private void flushValueChanged(){
+        mDispatcher.flush(System.nanoTime());
+    }
+
+    // Index of the nearest thumb within maxDistance, or -1.
+    private int getClosestThumb(PointF touch, double maxDistance){
+        return mModel.nearestThumb(touch.x, touch.y, maxDistance);
+    }
+
+    // Number of pixels the last onDraw was asked to repaint.
+    public long getLastFrameRedrawnPixels(){
+        return mLastFrameRedrawnPixels;
+    }
+
+    private void invalidateAll(){
+        mFullRedraw = true;
+        invalidate();
+    }
+
+    private float getThumbEllipseAngle(int thumb){
+        return mEllipse.getEllipseAngle(mModel.getPosition(thumb));
+    }
+
+    // Returns whether the thumb's value changed.
+    private boolean setThumbAngle(int thumb, float angle){
+        boolean changed = mModel.setPosition(thumb, angle);
+        updateThumbPos(thumb);
+        updatePushedThumbs(thumb);
+        return changed;
+    }
+
+    // Moves the thumb to wherever value sits on the track. Returns whether the value changed.
+    private boolean applyThumbValue(int thumb, float value){
+        boolean changed = mModel.setValue(thumb, value);
+        updateThumbPos(thumb);
+        updatePushedThumbs(thumb);
+        return changed;
+    }
+
+    private boolean isThumbActive(int thumb){
+        return mThumbs.isActive(thumb);
+    }
+
+    private void setThumbActive(int thumb, boolean active){
+        mThumbs.setActive(thumb, active);
+    }
+
+    private float getThumbRadius(int thumb){
+        return mThumbs.getRadius(thumb);
+    }
+
+    // Half the size of the box the thumb draws into: its circle, or its label if wider.
+    private float getThumbExtent(int thumb){
+        float radius = getThumbRadius(thumb);
+        if(mThumbLabels == null){
+            return radius;
+        }
+        ValueLabel label = mThumbLabels[thumb];
+        return Math.max(radius, Math.max(label.getWidth(), label.getDescent() - label.getAscent())/2);
+    }
+
+    private void updateThumbPos(int thumb){
+        float angle = mModel.getPosition(thumb);
+        mThumbs.setPosition(thumb, mEllipse.getX(angle), mEllipse.getY(angle));
+        updateThumbLabel(thumb);
+    }
+
+    // Integer steps are shown straight from the step index; anything else is rounded.
+    private void updateThumbLabel(int thumb){
+        if(mThumbLabels == null){
+            return;
+        }
+        if(mModel.hasIntegerSteps()){
+            mThumbLabels[thumb].setValue(mModel.getIntValue(thumb));
+        } else {
+            mThumbLabels[thumb].setValue(mModel.getValue(thumb), mThumbLabelDecimals);
+        }
+    }
+
+    private void drawThumb(Canvas canvas, int thumb){
+        ThumbStyle style = mThumbStyles.get(mThumbs.getStyle(thumb));
+        // The thumb the keys move is highlighted while the slider has focus.
+        boolean highlighted = isThumbActive(thumb) || (thumb == mKeyboardThumb && isFocused());
+        Paint paint = highlighted ? style.mActivePaint : style.mInactivePaint;
+        canvas.drawCircle(mThumbs.getX(thumb), mThumbs.getY(thumb), getThumbRadius(thumb), paint);
+        if(mThumbLabels != null){
+            mThumbLabels[thumb].drawCentered(canvas, mThumbs.getX(thumb), mThumbs.getY(thumb));
+        }
+    }
+
+    private void beginThumbChange(int thumb){
+        mPrevThumbPos.set(mThumbs.getX(thumb), mThumbs.getY(thumb));
+        mPrevThumbExtent = getThumbExtent(thumb);
+        mPrevThumbAngle = mModel.getPosition(thumb);
+    }
+
+    // Dirties the thumb's old and new circles (or labels) plus the track between them. Unless
+    // redraw is forced (e.g. the thumb changed color), a thumb that didn't move dirties nothing.
+    private void endThumbChange(int thumb, boolean forceRedraw){
+        if(!forceRedraw && mThumbs.getX(thumb) == mPrevThumbPos.x && mThumbs.getY(thumb) == mPrevThumbPos.y){
+            return;
         }
+        markThumbMoved(thumb, mPrevThumbPos.x, mPrevThumbPos.y, mPrevThumbExtent, mPrevThumbAngle);
     }
 
-    private double distanceBetweenPoints(PointF start, PointF end){
-        double xDiff = end.x - start.x;
-        double yDiff = end.y - start.y;
-        return Math.sqrt(Math.pow(xDiff, 2) + Math.pow(yDiff, 2));
+    // Pushing (ORDERING_PUSH) can move thumbs besides the one being set. Their old spots
+    // are read before updating, so this doesn't disturb an open beginThumbChange.
+    private void updatePushedThumbs(int thumb){
+        for(int i = mModel.getMovedFirst(); i <= mModel.getMovedLast(); i++){
+            if(i == thumb){
+                continue;
+            }
+            float prevX = mThumbs.getX(i);
+            float prevY = mThumbs.getY(i);
+            float prevExtent = getThumbExtent(i);
+            float prevAngle = mEllipse.project(prevX, prevY);
+            updateThumbPos(i);
+            markThumbMoved(i, prevX, prevY, prevExtent, prevAngle);
+        }
     }
 
-    private float getAngleFromOrigin(PointF point){
-        float delta_x = point.x - mArcOrigin.x;
-        float delta_y = mArcOrigin.y - point.y;
-        float angle = (float) Math.toDegrees(Math.atan2(delta_y, delta_x));
+    private void markThumbMoved(int thumb, float prevX, float prevY, float prevExtent, float prevAngle){
+        float x = mThumbs.getX(thumb);
+        float y = mThumbs.getY(thumb);
+        float r = prevExtent + DIRTY_MARGIN;
+        mDirtyRegion.union(prevX - r, prevY - r, prevX + r, prevY + r);
+        r = getThumbExtent(thumb) + DIRTY_MARGIN;
+        mDirtyRegion.union(x - r, y - r, x + r, y + r);
+
+        // Between axes the arc is monotonic in x and y, so the box around the old and new
+        // positions covers the stretch of arc (and active arc) that changed, plus the ends of
+        // any axes it crossed, where it bulges out furthest.
+        float left = Math.min(x, prevX);
+        float top = Math.min(y, prevY);
+        float right = Math.max(x, prevX);
+        float bottom = Math.max(y, prevY);
+        float angle = mModel.getPosition(thumb);
+        float to = Math.max(angle, prevAngle);
+        for(float axis = (float)Math.floor(Math.min(angle, prevAngle) / 90f + 1f) * 90f; axis < to; axis += 90f){
+            float axisX = mEllipse.getX(axis);
+            float axisY = mEllipse.getY(axis);
+            left = Math.min(left, axisX);
+            top = Math.min(top, axisY);
+            right = Math.max(right, axisX);
+            bottom = Math.max(bottom, axisY);
+        }
+        float stroke = LINE_STROKE_WIDTH/2 + DIRTY_MARGIN;
+        mDirtyRegion.union(left - stroke, top - stroke, right + stroke, bottom + stroke);
+    }
+
+    // Invalidates only what changed since the last call, and nothing if nothing did.
+    private void invalidateDirtyRegion(){
+        if(mDirtyRegion.isEmpty()){
+            return;
+        }
+
+        mDirtyRegion.roundOut(mDirtyRect);
+        mDirtyRegion.setEmpty();
+        mFrameDirtyRect.union(mDirtyRect);
+        invalidate(mDirtyRect);
+    }
 
-        if(angle < 0f){
-            angle = 0f;
-        } else if(angle > 90f){
-            angle = 90f;
+    private void recordRedrawnPixels(){
+        if(mFullRedraw){
+            mLastFrameRedrawnPixels = (long)getWidth() * getHeight();
+        } else {
+            mLastFrameRedrawnPixels = (long)mFrameDirtyRect.width() * mFrameDirtyRect.height();
         }
-        return angle;
+        mFullRedraw = false;
+        mFrameDirtyRect.setEmpty();
     }
 
-    private float getAngleValueOnSlider(float angle){
-        float valueRange = mMax - mMin;
-        return valueRange * angle / 90f + mMin;
+    // Records every sample batched into this event for the pointer at index, oldest first,
+    // ending with the thumb's final angle. Only the cheap angle math runs per sample.
+    // previous is the drag's angle before this event.
+    private void recordTouchHistory(MotionEvent event, int index, int slot, float previous){
+        TouchHistory history = mTouchHistories[slot];
+        for(int h = 0; h < event.getHistorySize(); h++){
+            mHistoryPoint.set(event.getHistoricalX(index, h), event.getHistoricalY(index, h));
+            previous = holdAcrossGap(mEllipse.project(mHistoryPoint.x, mHistoryPoint.y), previous);
+            history.add(previous, event.getHistoricalEventTime(h));
+        }
+        history.add(mModel.getPosition(mPointerThumbs[slot]), event.getEventTime());
     }
 
-    private void updateThumbValue(){
-        float value = getAngleValueOnSlider(mActiveThumb.getAngle());
-        mActiveThumb.setValue(value);
+    // On an arc of more than a half turn, a finger crossing the gap (or the seam of a full
+    // circle) projects to the far end. A jump of over half a turn from the previous angle is
+    // that, so the drag holds at the end it left from until the finger comes back.
+    private float holdAcrossGap(float angle, float previous){
+        if(Math.abs(angle - previous) <= 180f){
+            return angle;
+        }
+        float low = Math.min(mEllipse.getStart(), mEllipse.getEnd());
+        float high = Math.max(mEllipse.getStart(), mEllipse.getEnd());
+        return angle > previous ? low : high;
+    }
 
-        // Only bug the listener if there's a thumb to report.
-        if(mListener != null && mThumbs.size() > 0){
-            mListener.onValueChanged(this, getThumbValues());
+    private int findPointerSlot(int pointerId){
+        for(int slot = 0; slot < MAX_POINTERS; slot++){
+            if(mPointerIds[slot] == pointerId){
+                return slot;
+            }
         }
+        return -1;
     }
 
-    private SliderThumb getClosestThumb(PointF touch){
-        double closestThumbDistance = distanceBetweenPoints(mArcOrigin, touch);
-        SliderThumb closest = null;
-        for(SliderThumb t : mThumbs){
-            double distanceToThumb = distanceBetweenPoints(touch, t.mPos);
-            if(distanceToThumb < closestThumbDistance){
-                closest = t;
-                closestThumbDistance = distanceToThumb;
+    private int findThumbSlot(int thumb){
+        for(int slot = 0; slot < MAX_POINTERS; slot++){
+            if(mPointerThumbs[slot] == thumb){
+                return slot;
             }
         }
+        return -1;
+    }
+
+    // Hands the thumb nearest the pointer at index to that pointer, if there is a free slot.
+    private void grabThumb(MotionEvent event, int index){
+        int slot = findPointerSlot(MotionEvent.INVALID_POINTER_ID);
+        if(slot < 0){
+            return;
+        }
+
+        mTouchPoint.set(event.getX(index), event.getY(index));
+        float touchAngle = mEllipse.project(mTouchPoint.x, mTouchPoint.y);
+        int thumb = getClosestThumb(mTouchPoint, ALLOWED_TOUCH_DIFFERENCE);
+        // A thumb already held by another finger stays with that finger.
+        if(thumb < 0 || isThumbActive(thumb)){
+            return;
+        }
+
+        // The finger takes over from any programmatic animation or fling.
+        stopAnimation(thumb);
+        stopFling(thumb);
+
+        // Forget any older drag of this thumb so its history only lives in one slot.
+        int oldSlot = findThumbSlot(thumb);
+        if(oldSlot >= 0){
+            mPointerThumbs[oldSlot] = -1;
+        }
+        mPointerIds[slot] = event.getPointerId(index);
+        mPointerThumbs[slot] = thumb;
+
+        beginThumbChange(thumb);
+        setThumbActive(thumb, true);
+
+        if(setThumbAngle(thumb, touchAngle)){
+            mValuesChanged = true;
+        }
+        endThumbChange(thumb, true);
+
+        mPointerAngles[slot] = mModel.getPosition(thumb);
+        if(mTouchHistoryEnabled || mFlingEnabled){
+            mTouchHistories[slot].clear();
+            recordTouchHistory(event, index, slot, mPointerAngles[slot]);
+        }
+    }
+
+    private void moveThumb(MotionEvent event, int slot, int index){
+        if(index < 0){
+            return;
+        }
+
+        int thumb = mPointerThumbs[slot];
+        float previous = mPointerAngles[slot];
+        mTouchPoint.set(event.getX(index), event.getY(index));
+        float angle = holdAcrossGap(mEllipse.project(mTouchPoint.x, mTouchPoint.y), previous);
+        mPointerAngles[slot] = angle;
+        beginThumbChange(thumb);
+        if(setThumbAngle(thumb, angle)){
+            mValuesChanged = true;
+        }
+        endThumbChange(thumb, false);
+
+        if(mTouchHistoryEnabled || mFlingEnabled){
+            recordTouchHistory(event, index, slot, previous);
+        }
+    }
+
+    private void releaseThumb(int slot){
+        int thumb = mPointerThumbs[slot];
 
-        return closest;
+        // We're done listening to this nonsense.
+        beginThumbChange(thumb);
+        setThumbActive(thumb, false);
+        endThumbChange(thumb, true);
+        mPointerIds[slot] = MotionEvent.INVALID_POINTER_ID;
     }
 
     @Override
     public boolean onTouchEvent (MotionEvent event) {
-        PointF eventPoint = new PointF(event.getX(), event.getY());
-        switch (event.getAction()) {
+        SliderMetrics metrics = mMetrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0L;
+        int action = event.getActionMasked();
+        int index = event.getActionIndex();
+        switch (action) {
             case MotionEvent.ACTION_DOWN:
-                SliderThumb closest = getClosestThumb(eventPoint);
-                if(mThumbs.size() > 0 &&
-                        distanceBetweenPoints(eventPoint, closest.mPos) <= ALLOWED_TOUCH_DIFFERENCE){
-                    mActiveThumb = closest;
-                    mActiveThumb.setColor(THUMB_ACTIVE_COLOR);
-                    mActiveThumb.setActive(true);
-
-                    float angle = getAngleFromOrigin(eventPoint);
-                    mActiveThumb.setAngle(angle);
-                    updateThumbValue();
-                }
+            case MotionEvent.ACTION_POINTER_DOWN:
+                grabThumb(event, index);
                 break;
 
             case MotionEvent.ACTION_MOVE:
-                if(mActiveThumb != null){
-                    float angle = getAngleFromOrigin(eventPoint);
-                    mActiveThumb.setAngle(angle);
-                    updateThumbValue();
+                // Every pointer's thumb moves, then other threads see the new values together.
+                mModel.beginUpdate();
+                for(int slot = 0; slot < MAX_POINTERS; slot++){
+                    if(mPointerIds[slot] != MotionEvent.INVALID_POINTER_ID){
+                        moveThumb(event, slot, event.findPointerIndex(mPointerIds[slot]));
+                    }
                 }
+                mModel.endUpdate();
                 break;
 
             case MotionEvent.ACTION_UP:
-                if(mActiveThumb != null){
-                    float angle = getAngleFromOrigin(eventPoint);
-                    mActiveThumb.setAngle(angle);
-                    updateThumbValue();
-
-                    // We're done listening to this nonsense.
-                    mActiveThumb.setColor(THUMB_INACTIVE_COLOR);
-                    mActiveThumb.setActive(false);
-                    mActiveThumb = null;
+            case MotionEvent.ACTION_POINTER_UP:
+                int slot = findPointerSlot(event.getPointerId(index));
+                if(slot >= 0){
+                    moveThumb(event, slot, index);
+                    if(mFlingEnabled){
+                        startFling(mPointerThumbs[slot],
+                                mTouchHistories[slot].getVelocity(VELOCITY_WINDOW_MS));
+                    }
+                    releaseThumb(slot);
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                for(int i = 0; i < MAX_POINTERS; i++){
+                    if(mPointerIds[i] != MotionEvent.INVALID_POINTER_ID){
+                        releaseThumb(i);
+                    }
                 }
                 break;
         }
 
-        invalidate();
+        // One notification covers every thumb this event moved.
+        if(mValuesChanged){
+            mValuesChanged = false;
+            if(metrics != null){
+                // Event times are uptimeMillis, which runs on the same clock as nanoTime.
+                metrics.record(SliderMetrics.METRIC_TOUCH_TO_VALUE, event.getEventTime() * 1000000L,
+                        System.nanoTime());
+            }
+            notifyValuesChanged();
+        }
+        if(action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL){
+            flushValueChanged();
+        }
+
+        invalidateDirtyRegion();
+        if(metrics != null){
+            metrics.record(SliderMetrics.METRIC_TOUCH_HANDLING, startNanos, System.nanoTime());
+        }
         return true;
     }
 
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event){
+        if(mThumbCount > 0){
+            switch(keyCode){
+                // A key that can't move the thumb, e.g. at the end of the track, isn't ours:
+                // it falls through, so focus can move on as it does from a SeekBar.
+                case KeyEvent.KEYCODE_DPAD_RIGHT:
+                case KeyEvent.KEYCODE_DPAD_UP:
+                    if(queueKeySteps(mKeyboardThumb, 1)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_DPAD_LEFT:
+                case KeyEvent.KEYCODE_DPAD_DOWN:
+                    if(queueKeySteps(mKeyboardThumb, -1)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_PAGE_UP:
+                    if(queueKeySteps(mKeyboardThumb, KEY_PAGE_STEPS)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_PAGE_DOWN:
+                    if(queueKeySteps(mKeyboardThumb, -KEY_PAGE_STEPS)){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_MOVE_HOME:
+                    if(moveThumbByKey(mKeyboardThumb, mModel.getMin())){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_MOVE_END:
+                    if(moveThumbByKey(mKeyboardThumb, mModel.getMax())){
+                        return true;
+                    }
+                    break;
+
+                case KeyEvent.KEYCODE_TAB:
+                    // Past the first or last thumb, Tab leaves the slider as usual.
+                    int next = mKeyboardThumb + (event.isShiftPressed() ? -1 : 1);
+                    if(next >= 0 && next < mThumbCount){
+                        setKeyboardThumb(next);
+                        mAccessibilityHelper.requestKeyboardFocusForVirtualView(next);
+                        return true;
+                    }
+                    break;
+            }
+        }
+        return super.onKeyDown(keyCode, event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect){
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        mAccessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        if(mKeyboardThumb < mThumbCount){
+            beginThumbChange(mKeyboardThumb);
+            endThumbChange(mKeyboardThumb, true);
+            invalidateDirtyRegion();
+        }
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event){
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    private void setKeyboardThumb(int thumb){
+        if(thumb == mKeyboardThumb){
+            return;
+        }
+        mKeySteps.apply();
+        int previous = mKeyboardThumb;
+        mKeyboardThumb = thumb;
+        beginThumbChange(previous);
+        endThumbChange(previous, true);
+        beginThumbChange(thumb);
+        endThumbChange(thumb, true);
+        invalidateDirtyRegion();
+    }
+
+    // How far one arrow press moves a thumb, in value units.
+    private float getKeyStep(){
+        if(mModel.getStep() > 0f){
+            return mModel.getStep();
+        }
+        return Math.abs(mModel.getMax() - mModel.getMin()) * DEFAULT_KEY_STEP_FRACTION;
+    }
+
+    // Adds steps to the thumb's next frame move. Returns false, queuing nothing, if the thumb
+    // can't move that way at all.
+    private boolean queueKeySteps(int thumb, int steps){
+        return mKeySteps.queue(thumb, steps);
+    }
+
+    // Moves thumb by a frame's worth of presses. Returns whether the value changed.
+    private boolean applyKeySteps(int thumb, int steps){
+        if(mModel.getStep() == 0f && mModel.getValueScale() != SliderModel.ValueScale.LINEAR){
+            // Under a curved scale a fixed slice of the range is a crawl at one end and a
+            // jump at the other, so continuous keys step a fixed slice of the track instead.
+            SliderModel.Geometry track = mModel.getGeometry();
+            float delta = steps * (track.getEnd() - track.getStart()) * DEFAULT_KEY_STEP_FRACTION;
+            return moveThumbForKey(thumb, mModel.valueAt(mModel.getPosition(thumb) + delta));
+        }
+        return moveThumbForKey(thumb, mModel.getValue(thumb) + steps * getKeyStep());
+    }
+
+    // Moves thumb straight to value, e.g. for Home and End. Returns whether the value changed.
+    private boolean moveThumbByKey(int thumb, float value){
+        boolean changed = moveThumbForKey(thumb, value);
+        if(changed){
+            mKeySteps.changed(thumb);
+        }
+        return changed;
+    }
+
+    private boolean moveThumbForKey(int thumb, float value){
+        boolean changed = moveThumbTo(thumb, value, false, System.nanoTime());
+        finishThumbMoves(changed);
+        return changed;
+    }
+
+    // Exposes each thumb to accessibility services as its own SeekBar-like virtual view.
+    private class ThumbAccessibilityHelper extends ExploreByTouchHelper {
+        private final Rect mBounds = new Rect();
+
+        ThumbAccessibilityHelper(View host){
+            super(host);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y){
+            mHoverPoint.set(x, y);
+            int thumb = getClosestThumb(mHoverPoint, ALLOWED_TOUCH_DIFFERENCE);
+            return thumb < 0 ? INVALID_ID : thumb;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds){
+            for(int i = 0; i < mThumbCount; i++){
+                virtualViewIds.add(i);
+            }
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int thumb, AccessibilityNodeInfoCompat node){
+            float low = Math.min(mModel.getMin(), mModel.getMax());
+            float high = Math.max(mModel.getMin(), mModel.getMax());
+            float value = mModel.getValue(thumb);
+
+            node.setClassName(SEEK_BAR_CLASS_NAME);
+            node.setContentDescription("Thumb " + (thumb + 1) + " of " + mThumbCount);
+            node.setRangeInfo(AccessibilityNodeInfoCompat.RangeInfoCompat.obtain(
+                    AccessibilityNodeInfoCompat.RangeInfoCompat.RANGE_TYPE_FLOAT, low, high, value));
+            node.setFocusable(true);
+            node.setScrollable(true);
+            if(value < high){
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+            }
+            if(value > low){
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+            }
+            node.addAction(AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_SET_PROGRESS);
+
+            float r = getThumbExtent(thumb);
+            mBounds.set((int)Math.floor(mThumbs.getX(thumb) - r), (int)Math.floor(mThumbs.getY(thumb) - r),
+                    (int)Math.ceil(mThumbs.getX(thumb) + r), (int)Math.ceil(mThumbs.getY(thumb) + r));
+            node.setBoundsInParent(mBounds);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int thumb, int action, Bundle arguments){
+            if(action == AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD){
+                return queueKeySteps(thumb, 1);
+            }
+            if(action == AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD){
+                return queueKeySteps(thumb, -1);
+            }
+            if(action == AccessibilityNodeInfoCompat.AccessibilityActionCompat.ACTION_SET_PROGRESS.getId()
+                    && arguments != null
+                    && arguments.containsKey(AccessibilityNodeInfoCompat.ACTION_ARGUMENT_PROGRESS_VALUE)){
+                moveThumbByKey(thumb,
+                        arguments.getFloat(AccessibilityNodeInfoCompat.ACTION_ARGUMENT_PROGRESS_VALUE));
+                return true;
+            }
+            return false;
+        }
+    }
+
     public ArrayList<Float> getThumbValues(){
         ArrayList<Float> thumbValues = new ArrayList<>();
-        for(SliderThumb t : mThumbs){
-            Float value = t.getValue();
-            thumbValues.add(value);
+        for(int i = 0; i < mThumbCount; i++){
+            thumbValues.add(mModel.getValue(i));
         }
 
         return thumbValues;
     }
+
+    // Copies thumb values into out without boxing. Returns how many thumbs the slider has;
+    // if out is shorter than that, only the first out.length values are written.
+    public int getThumbValues(float[] out){
+        return mModel.getValues(out);
+    }
+
+    // Copies thumb values as ints into out. With whole-number min, max and step this skips
+    // float math entirely. Returns how many thumbs the slider has.
+    public int getThumbValues(int[] out){
+        return mModel.getIntValues(out);
+    }
+
+    // Like getThumbValues(float[]), but safe to call from any thread without blocking the UI
+    // thread, e.g. from an audio callback. Values are published once per update (a drag event,
+    // a push, a setThumbValues batch, an animation frame), so a read never sees one half done.
+    // See SliderModel.readValues.
+    public int readThumbValues(float[] out){
+        return mModel.readValues(out);
+    }
+
+    // Changes whenever a thumb value does; poll it to skip reads when nothing moved.
+    // Safe to call from any thread.
+    public int getValuesVersion(){
+        return mModel.getPublishedVersion();
+    }
 }
@@ -0,0 +1,165 @@
+package reimschussel.diyslider;
+
+import java.util.Arrays;
+
+// Inertia for thumbs let go mid-drag. Velocity is in track units per second and decays
+// exponentially under DRAG. The integrator runs at a fixed STEP_NANOS whatever the frame
+// rate; each frame the view applies getPosition to the thumbs still in the list, then
+// reports back with applied. A fling ends below the minimum velocity, at either end of the
+// track, or against a neighbour that blocks it.
+//
+// The model has the last word on where a thumb is. A flinging thumb that something else
+// moved (pushed by a neighbour, nudged by a key) carries on from where it was put, and one
+// the model held back stops there rather than integrating on past it.
+//
+// Like the rest of the slider this belongs to the UI thread.
+public class FlingIntegrator {
+    public static final float DRAG = 4f;
+    public static final long STEP_NANOS = 1000000000L / 240;
+    public static final float STEP_SECONDS = STEP_NANOS / 1e9f;
+    public static final float DECAY_PER_STEP = (float)Math.exp(-DRAG * STEP_SECONDS);
+    // After a stall, drop the backlog rather than replaying it all in one frame.
+    public static final long MAX_CATCH_UP_NANOS = 100000000L;
+
+    private final SliderModel mModel;
+    private final float mMinVelocity, mMaxVelocity;
+    // Per thumb: where the fling has it, its velocity, and the model position it was last
+    // applied at.
+    private final float[] mPositions, mVelocities, mApplied;
+    // Thumbs flinging, in mThumbs[0..mCount), and each thumb's slot there or -1.
+    private final int[] mThumbs, mSlots;
+    private int mCount;
+    private long mLastFrameNanos, mAccumulatorNanos;
+
+    public FlingIntegrator(SliderModel model, float minVelocity, float maxVelocity){
+        mModel = model;
+        mMinVelocity = minVelocity;
+        mMaxVelocity = maxVelocity;
+        int thumbCount = model.getThumbCount();
+        mPositions = new float[thumbCount];
+        mVelocities = new float[thumbCount];
+        mApplied = new float[thumbCount];
+        mThumbs = new int[thumbCount];
+        mSlots = new int[thumbCount];
+        Arrays.fill(mSlots, -1);
+    }
+
+    // Starts (or restarts) thumb from its current position. Returns false, and leaves the
+    // thumb alone, when velocity is too slow to fling.
+    public boolean start(int thumb, float velocity, long nowNanos){
+        if(Math.abs(velocity) < mMinVelocity){
+            return false;
+        }
+        velocity = Math.max(-mMaxVelocity, Math.min(velocity, mMaxVelocity));
+
+        if(mCount == 0){
+            mLastFrameNanos = nowNanos;
+            mAccumulatorNanos = 0;
+        }
+        if(mSlots[thumb] < 0){
+            mSlots[thumb] = mCount;
+            mThumbs[mCount++] = thumb;
+        }
+        mPositions[thumb] = mModel.getPosition(thumb);
+        mApplied[thumb] = mPositions[thumb];
+        mVelocities[thumb] = velocity;
+        return true;
+    }
+
+    // Integrates every fling up to frameTimeNanos. A fling that ends keeps its slot, with
+    // zero velocity, until the view has applied its last position.
+    public void advance(long frameTimeNanos){
+        mAccumulatorNanos += frameTimeNanos - mLastFrameNanos;
+        mLastFrameNanos = frameTimeNanos;
+        if(mAccumulatorNanos > MAX_CATCH_UP_NANOS){
+            mAccumulatorNanos = MAX_CATCH_UP_NANOS;
+        }
+
+        // Something other than the fling moved these since the last frame.
+        for(int i = 0; i < mCount; i++){
+            int thumb = mThumbs[i];
+            float position = mModel.getPosition(thumb);
+            if(position != mApplied[thumb]){
+                mPositions[thumb] = position;
+                mApplied[thumb] = position;
+            }
+        }
+
+        while(mAccumulatorNanos >= STEP_NANOS){
+            mAccumulatorNanos -= STEP_NANOS;
+            for(int i = 0; i < mCount; i++){
+                int thumb = mThumbs[i];
+                float velocity = mVelocities[thumb];
+                if(velocity == 0f){
+                    continue;
+                }
+
+                velocity *= DECAY_PER_STEP;
+                float position = mPositions[thumb] + velocity * STEP_SECONDS;
+                float clamped = mModel.clamp(position);
+                mPositions[thumb] = clamped;
+                if(clamped != position || Math.abs(velocity) < mMinVelocity){
+                    velocity = 0f;
+                }
+                mVelocities[thumb] = velocity;
+            }
+        }
+    }
+
+    // Call once the view has moved thumb to getPosition(thumb). If the model couldn't take it
+    // all the way there, the thumb ran into a neighbour: the fling stops where it was held.
+    public void applied(int thumb){
+        float position = mPositions[thumb];
+        if(mModel.reachablePosition(thumb, position) != position){
+            mPositions[thumb] = mModel.getPosition(thumb);
+            mVelocities[thumb] = 0f;
+        }
+        mApplied[thumb] = mModel.getPosition(thumb);
+    }
+
+    public int getCount(){
+        return mCount;
+    }
+
+    // The i-th thumb flinging, 0 <= i < getCount. stop swaps the last one into the slot it
+    // frees, so walk the list backwards when stopping thumbs on the way.
+    public int getThumb(int i){
+        return mThumbs[i];
+    }
+
+    public boolean isFlinging(int thumb){
+        return mSlots[thumb] >= 0;
+    }
+
+    // Where the fling has thumb now, in track units.
+    public float getPosition(int thumb){
+        return mPositions[thumb];
+    }
+
+    public float getVelocity(int thumb){
+        return mVelocities[thumb];
+    }
+
+    // Whether thumb's fling has run down; it stays in the list until stopped.
+    public boolean isFinished(int thumb){
+        return mVelocities[thumb] == 0f;
+    }
+
+    public void stop(int thumb){
+        int slot = mSlots[thumb];
+        if(slot < 0){
+            return;
+        }
+        int last = mThumbs[--mCount];
+        mThumbs[slot] = last;
+        mSlots[last] = slot;
+        mSlots[thumb] = -1;
+    }
+
+    // Stops every fling where it is.
+    public void cancel(){
+        while(mCount > 0){
+            stop(mThumbs[mCount - 1]);
+        }
+    }
+}
@@ -8,6 +8,9 @@ import android.widget.TextView;
 import java.util.ArrayList;
 
 public class MainActivity extends AppCompatActivity implements DIYSlider.OnDIYSliderChangeListener{
+    // Views only get their state saved when they have an id. This one is built in code, so it
+    // gets a fixed id outside both the aapt (0x7f......) and View.generateViewId() ranges.
+    private final int SLIDER_ID = 0x7e000001;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -15,17 +18,22 @@ public class MainActivity extends AppCompatActivity implements DIYSlider.OnDIYSl
         setContentView(R.layout.activity_main);
 
         final DIYSlider slider = new DIYSlider(this, 3, 100, 200, 40, 60);
+        slider.setDispatchMode(DIYSlider.DISPATCH_PER_FRAME);
         slider.setListener(this);
+        slider.setId(SLIDER_ID);
 
         FrameLayout layout = (FrameLayout) findViewById(R.id.slider_placeholder);
         layout.addView(slider);
 
-        slider.post(new Runnable() {
-            @Override
-            public void run() {
-                slider.setup();
-            }
-        });
+        // After a rotation the slider restores its own values; setup() would overwrite them.
+        if(savedInstanceState == null){
+            slider.post(new Runnable() {
+                @Override
+                public void run() {
+                    slider.setup();
+                }
+            });
+        }
     }
 
     @Override
@@ -0,0 +1,172 @@
+package reimschussel.diyslider;
+
+import java.util.Arrays;
+
+// Optional hot-path timings for a DIYSlider, kept in HdrHistogram-style buckets: each power of
+// two of nanoseconds is split into SUB_BUCKETS linear buckets, so any recorded time is known
+// to within 1/SUB_BUCKETS (about 3%) of itself from 1 ns up to MAX_NANOS. Every array is
+// allocated up front and recording is a few array writes, so an enabled slider still doesn't
+// allocate while it's dragged. A slider without metrics skips all of it, System.nanoTime
+// included, behind one null check.
+//
+// Like the rest of the slider this belongs to the UI thread. Counts build up over an interval
+// until a snapshot copies them out and starts the next one.
+public class SliderMetrics {
+    // From a touch event's timestamp to the thumb values it changed being in the model. The
+    // event time only has millisecond resolution, so this is the one coarse metric; it does
+    // show input delivered late, which the others can't.
+    public static final int METRIC_TOUCH_TO_VALUE = 0;
+    // Time spent in onTouchEvent, including listeners when dispatch is immediate.
+    public static final int METRIC_TOUCH_HANDLING = 1;
+    // Time spent in the value listeners, per dispatch.
+    public static final int METRIC_LISTENER = 2;
+    // Time spent in onDraw.
+    public static final int METRIC_DRAW = 3;
+    public static final int METRIC_COUNT = 4;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HIGHEST_EXPONENT = 35;
+    // About 69 seconds; longer times are counted in the last bucket.
+    public static final long MAX_NANOS = (1L << (HIGHEST_EXPONENT + 1)) - 1;
+    public static final int BUCKETS = (HIGHEST_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    public interface SnapshotListener {
+        // Called on the UI thread, from inside the slider's event or draw handling, with a
+        // Snapshot that's reused for the next interval. Copy out what you need and return.
+        void onSnapshot(SliderMetrics metrics, Snapshot snapshot);
+    }
+
+    // One interval's worth of recordings. Values are in nanoseconds; a percentile is the top
+    // of the bucket it falls in, capped at the largest time actually recorded.
+    public static class Snapshot {
+        private final long[] mCounts = new long[METRIC_COUNT * BUCKETS];
+        private final long[] mTotals = new long[METRIC_COUNT];
+        private final long[] mSums = new long[METRIC_COUNT];
+        private final long[] mMax = new long[METRIC_COUNT];
+        private long mStartNanos, mEndNanos;
+
+        public long getStartNanos(){
+            return mStartNanos;
+        }
+
+        public long getEndNanos(){
+            return mEndNanos;
+        }
+
+        public long getCount(int metric){
+            return mTotals[metric];
+        }
+
+        public long getMaxNanos(int metric){
+            return mMax[metric];
+        }
+
+        public double getMeanNanos(int metric){
+            return mTotals[metric] == 0 ? 0.0 : (double)mSums[metric] / mTotals[metric];
+        }
+
+        // percentile runs from 0 to 100.
+        public long getValueAtPercentile(int metric, double percentile){
+            long total = mTotals[metric];
+            if(total == 0){
+                return 0;
+            }
+            long rank = Math.max(1, (long)Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+            long seen = 0;
+            int base = metric * BUCKETS;
+            for(int i = 0; i < BUCKETS; i++){
+                seen += mCounts[base + i];
+                if(seen >= rank){
+                    return Math.min(getBucketUpperBound(i), mMax[metric]);
+                }
+            }
+            return mMax[metric];
+        }
+
+        // Raw counts for exporting the whole distribution; see getBucketLowerBound.
+        public long getBucketCount(int metric, int bucket){
+            return mCounts[metric * BUCKETS + bucket];
+        }
+    }
+
+    private final long[] mCounts = new long[METRIC_COUNT * BUCKETS];
+    private final long[] mTotals = new long[METRIC_COUNT];
+    private final long[] mSums = new long[METRIC_COUNT];
+    private final long[] mMax = new long[METRIC_COUNT];
+    private long mIntervalStartNanos = System.nanoTime();
+
+    private final Snapshot mSnapshot = new Snapshot();
+    private SnapshotListener mListener;
+    private long mSnapshotIntervalNanos;
+
+    // Hands listener a snapshot roughly every intervalMillis: the first recording at least
+    // that long after the previous snapshot takes one. null stops the snapshots.
+    public void setSnapshotListener(SnapshotListener listener, long intervalMillis){
+        mListener = listener;
+        mSnapshotIntervalNanos = Math.max(0, intervalMillis) * 1000000L;
+    }
+
+    // Counts one timing that ran from startNanos to endNanos (System.nanoTime values).
+    public void record(int metric, long startNanos, long endNanos){
+        long nanos = Math.max(0, Math.min(endNanos - startNanos, MAX_NANOS));
+        mCounts[metric * BUCKETS + getBucket(nanos)]++;
+        mTotals[metric]++;
+        mSums[metric] += nanos;
+        if(nanos > mMax[metric]){
+            mMax[metric] = nanos;
+        }
+
+        if(mListener != null && endNanos - mIntervalStartNanos >= mSnapshotIntervalNanos){
+            takeSnapshot(mSnapshot, endNanos);
+            mListener.onSnapshot(this, mSnapshot);
+        }
+    }
+
+    // Copies the counts since the last snapshot into snapshot and starts a new interval.
+    public void takeSnapshot(Snapshot snapshot){
+        takeSnapshot(snapshot, System.nanoTime());
+    }
+
+    private void takeSnapshot(Snapshot snapshot, long nowNanos){
+        System.arraycopy(mCounts, 0, snapshot.mCounts, 0, mCounts.length);
+        System.arraycopy(mTotals, 0, snapshot.mTotals, 0, METRIC_COUNT);
+        System.arraycopy(mSums, 0, snapshot.mSums, 0, METRIC_COUNT);
+        System.arraycopy(mMax, 0, snapshot.mMax, 0, METRIC_COUNT);
+        snapshot.mStartNanos = mIntervalStartNanos;
+        snapshot.mEndNanos = nowNanos;
+
+        Arrays.fill(mCounts, 0);
+        Arrays.fill(mTotals, 0);
+        Arrays.fill(mSums, 0);
+        Arrays.fill(mMax, 0);
+        mIntervalStartNanos = nowNanos;
+    }
+
+    // Times below SUB_BUCKETS get a bucket each. Above that, the top SUB_BUCKET_BITS + 1 bits
+    // pick the bucket: the exponent picks a row of SUB_BUCKETS and the bits under the leading
+    // one pick the column, so the bucket width doubles from one row to the next.
+    public static int getBucket(long nanos){
+        if(nanos < SUB_BUCKETS){
+            return (int)nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)(nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    public static long getBucketLowerBound(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    public static long getBucketUpperBound(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return ((long)(SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,85 @@
+package reimschussel.diyslider;
+
+import java.util.Arrays;
+
+// Per-thumb drawing state as parallel arrays indexed by thumb; positions and values live in
+// SliderModel. Pressed thumbs are a bitset. A thumb's style is an index into the view's pool
+// of Paint pairs, so any number of thumbs share the default style's two Paints. Radii only
+// get an array once some thumb is drawn at a size other than the default. That leaves a
+// thumb at about 12 bytes here (x, y, style, a bit) until radii are customised.
+//
+// Like the rest of the slider this belongs to the UI thread.
+public class ThumbStore {
+    private final float mDefaultRadius;
+    private final float[] mX, mY;
+    private final long[] mActive;
+    private final int[] mStyle;
+    private float[] mRadii;
+
+    public ThumbStore(int thumbCount, float defaultRadius){
+        mDefaultRadius = defaultRadius;
+        mX = new float[thumbCount];
+        mY = new float[thumbCount];
+        mActive = new long[(thumbCount + 63) / 64];
+        mStyle = new int[thumbCount];
+    }
+
+    public int getCount(){
+        return mX.length;
+    }
+
+    public float getX(int thumb){
+        return mX[thumb];
+    }
+
+    public float getY(int thumb){
+        return mY[thumb];
+    }
+
+    // Where the thumb's centre is drawn, in view coordinates.
+    public void setPosition(int thumb, float x, float y){
+        mX[thumb] = x;
+        mY[thumb] = y;
+    }
+
+    public boolean isActive(int thumb){
+        return (mActive[thumb >> 6] & (1L << thumb)) != 0;
+    }
+
+    public void setActive(int thumb, boolean active){
+        if(active){
+            mActive[thumb >> 6] |= 1L << thumb;
+        } else {
+            mActive[thumb >> 6] &= ~(1L << thumb);
+        }
+    }
+
+    // Index into the view's styles. 0 is the default.
+    public int getStyle(int thumb){
+        return mStyle[thumb];
+    }
+
+    public void setStyle(int thumb, int style){
+        mStyle[thumb] = style;
+    }
+
+    public float getRadius(int thumb){
+        return mRadii == null ? mDefaultRadius : mRadii[thumb];
+    }
+
+    public void setRadius(int thumb, float radius){
+        if(mRadii == null){
+            if(radius == mDefaultRadius){
+                return;
+            }
+            mRadii = new float[mX.length];
+            Arrays.fill(mRadii, mDefaultRadius);
+        }
+        mRadii[thumb] = radius;
+    }
+
+    // Whether any thumb has had its own radius, so the store carries an array of them.
+    public boolean hasCustomRadii(){
+        return mRadii != null;
+    }
+}
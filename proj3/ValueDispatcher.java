@@ -0,0 +1,110 @@
+package reimschussel.diyslider;
+
+// Decides when a slider's value listeners hear about changes. DISPATCH_IMMEDIATE delivers
+// every change as it happens. DISPATCH_PER_FRAME only marks the values dirty; the next display
+// frame delivers once, with whatever the values are by then, however many moves came in
+// before it, and no more often than the max rate allows. The host posts the frames (a
+// Choreographer callback in the view) and does the delivering, so nothing here needs Android.
+//
+// Like the rest of the slider this belongs to the UI thread.
+public class ValueDispatcher {
+    public static final int DISPATCH_IMMEDIATE = 0;
+    public static final int DISPATCH_PER_FRAME = 1;
+
+    public interface Host {
+        // Asks for one doFrame call on the next display frame.
+        void postFrame();
+        // Takes back a postFrame that hasn't run yet.
+        void removeFrame();
+        // Hands the current values to the listeners.
+        void dispatch();
+    }
+
+    private final Host mHost;
+    private int mMode = DISPATCH_IMMEDIATE;
+    private long mMinIntervalNanos;
+    private long mLastDispatchNanos;
+    private boolean mDirty, mFramePosted;
+
+    public ValueDispatcher(Host host){
+        mHost = host;
+    }
+
+    // Going back to DISPATCH_IMMEDIATE delivers anything still waiting for a frame.
+    public void setMode(int mode, long nowNanos){
+        mMode = mode;
+        if(mMode == DISPATCH_IMMEDIATE){
+            flush(nowNanos);
+        }
+    }
+
+    public int getMode(){
+        return mMode;
+    }
+
+    // Caps coalesced dispatch below the display rate. 0 means once per frame.
+    public void setMaxRate(float callbacksPerSecond){
+        if(callbacksPerSecond <= 0f){
+            mMinIntervalNanos = 0;
+        } else {
+            mMinIntervalNanos = (long)(1000000000L / callbacksPerSecond);
+        }
+    }
+
+    public boolean isDirty(){
+        return mDirty;
+    }
+
+    // Call after any change listeners should hear about.
+    public void valuesChanged(){
+        if(mMode == DISPATCH_PER_FRAME){
+            mDirty = true;
+            postFrame();
+        } else {
+            deliver();
+        }
+    }
+
+    // The frame asked for by Host.postFrame.
+    public void doFrame(long frameTimeNanos){
+        mFramePosted = false;
+        if(!mDirty){
+            return;
+        }
+
+        // Too soon for the configured max rate; try again next frame.
+        if(frameTimeNanos - mLastDispatchNanos < mMinIntervalNanos){
+            postFrame();
+            return;
+        }
+
+        mLastDispatchNanos = frameTimeNanos;
+        deliver();
+    }
+
+    // Delivers any coalesced values right away, so listeners always see the final ones, e.g.
+    // at the end of a drag.
+    public void flush(long nowNanos){
+        if(mFramePosted){
+            mHost.removeFrame();
+            mFramePosted = false;
+        }
+        if(mDirty){
+            mLastDispatchNanos = nowNanos;
+            deliver();
+        }
+    }
+
+    private void deliver(){
+        mDirty = false;
+        mHost.dispatch();
+    }
+
+    private void postFrame(){
+        if(mFramePosted){
+            return;
+        }
+        mFramePosted = true;
+        mHost.postFrame();
+    }
+}